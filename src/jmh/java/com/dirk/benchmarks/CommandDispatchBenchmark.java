@@ -0,0 +1,303 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.benchmarks;
+
+import com.dirk.listeners.CommandListener;
+import com.dirk.meta.CommandExecutor;
+import com.dirk.meta.CommandRegistry;
+import com.dirk.meta.CustomCommandComponent;
+import com.dirk.models.command.Command;
+import com.dirk.models.command.CommandArgument;
+import com.dirk.models.command.CommandArgumentType;
+import com.dirk.models.command.CommandParameter;
+import com.dirk.models.entities.CustomCommand;
+import com.dirk.repositories.CustomCommandRepository;
+import org.javacord.api.entity.channel.TextChannel;
+import org.javacord.api.entity.message.Message;
+import org.javacord.api.entity.message.MessageAuthor;
+import org.javacord.api.entity.server.Server;
+import org.javacord.api.event.message.MessageCreateEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Measures how long the command listener takes to parse a message and hand it over to the executor, for every
+ * type of command argument, custom commands and unknown commands. The commands themselves aren't run. Run with
+ * the gc profiler to see the allocations of every operation
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandDispatchBenchmark {
+    private static final String PREFIX = "d!";
+    private static final long SERVER_SNOWFLAKE = 123456789012345678L;
+    private static final int CUSTOM_COMMAND_SERVERS = 50;
+    private static final int CUSTOM_COMMANDS_PER_SERVER = 5;
+
+    private CommandListener commandListener;
+    private CountingCommandExecutor commandExecutor;
+    private CustomCommandComponent customCommandComponent;
+    private Command helpCommand;
+
+    private MessageCreateEvent noArgumentsMessage;
+    private MessageCreateEvent stringMessage;
+    private MessageCreateEvent integerMessage;
+    private MessageCreateEvent dateMessage;
+    private MessageCreateEvent invalidDateMessage;
+    private MessageCreateEvent booleanMessage;
+    private MessageCreateEvent singleStringsMessage;
+    private MessageCreateEvent customCommandMessage;
+    private MessageCreateEvent unknownCommandMessage;
+    private MessageCreateEvent plainMessage;
+
+    @Setup
+    public void setup() {
+        List<Command> commands = List.of(
+                new BenchmarkCommand("ping"),
+                new BenchmarkCommand("say", new CommandArgument("message", "The message to say", CommandArgumentType.String)),
+                new BenchmarkCommand("remindme",
+                        new CommandArgument("time amount", "The amount of time", CommandArgumentType.Integer),
+                        new CommandArgument("time unit", "The unit of time", CommandArgumentType.SingleString),
+                        new CommandArgument("message", "The message of the reminder", CommandArgumentType.String, true)),
+                new BenchmarkCommand("birthday", new CommandArgument("date", "The date in dd/mm/yyyy format", CommandArgumentType.Date)),
+                new BenchmarkCommand("toggle", new CommandArgument("enabled", "Whether it is enabled", CommandArgumentType.Boolean)),
+                new BenchmarkCommand("reschedule",
+                        new CommandArgument("match id", "The id of the match", CommandArgumentType.SingleString),
+                        new CommandArgument("day", "The day of the match", CommandArgumentType.SingleString),
+                        new CommandArgument("month", "The month of the match", CommandArgumentType.SingleString),
+                        new CommandArgument("time", "The time of the match", CommandArgumentType.SingleString))
+        );
+
+        Map<String, Command> commandBeans = new HashMap<>();
+
+        for (Command command : commands) {
+            commandBeans.put(command.getCommandName(), command);
+        }
+
+        helpCommand = commandBeans.get("remindme");
+        helpCommand.addAlias("remind");
+        helpCommand.addAlias("rm");
+
+        ApplicationContext applicationContext = mock(ApplicationContext.class, withSettings().stubOnly());
+        when(applicationContext.getBeansOfType(Command.class)).thenReturn(commandBeans);
+
+        List<CustomCommand> customCommands = new ArrayList<>();
+
+        for (long server = 0; server < CUSTOM_COMMAND_SERVERS; server++) {
+            for (int i = 0; i < CUSTOM_COMMANDS_PER_SERVER; i++) {
+                customCommands.add(new CustomCommand(server == 0 ? 0L : SERVER_SNOWFLAKE + server, 1L, "custom" + i + "_" + server, "Custom message " + i));
+            }
+        }
+
+        customCommands.add(new CustomCommand(SERVER_SNOWFLAKE, 1L, "rules", "Read the rules"));
+
+        CustomCommandRepository customCommandRepository = mock(CustomCommandRepository.class, withSettings().stubOnly());
+        when(customCommandRepository.findAll()).thenReturn(customCommands);
+
+        customCommandComponent = new CustomCommandComponent(customCommandRepository);
+        commandExecutor = new CountingCommandExecutor();
+        commandListener = new CommandListener(PREFIX, new CommandRegistry(applicationContext), commandExecutor, customCommandComponent);
+
+        noArgumentsMessage = mockMessage(PREFIX + "ping");
+        stringMessage = mockMessage(PREFIX + "say Hello everyone, the tournament starts in ten minutes");
+        integerMessage = mockMessage(PREFIX + "remindme 15 minutes check in for the match");
+        dateMessage = mockMessage(PREFIX + "birthday 01/05/1995");
+        invalidDateMessage = mockMessage(PREFIX + "birthday 31/02/abcd");
+        booleanMessage = mockMessage(PREFIX + "toggle true");
+        singleStringsMessage = mockMessage(PREFIX + "reschedule A5 12 December 18:00");
+        customCommandMessage = mockMessage(PREFIX + "rules");
+        unknownCommandMessage = mockMessage(PREFIX + "unknown argument");
+        plainMessage = mockMessage("Good luck with your match!");
+    }
+
+    @TearDown
+    public void tearDown() {
+        commandExecutor.shutdown();
+    }
+
+    @Benchmark
+    public void dispatchWithoutArguments() {
+        commandListener.onMessageCreate(noArgumentsMessage);
+    }
+
+    @Benchmark
+    public void dispatchStringArgument() {
+        commandListener.onMessageCreate(stringMessage);
+    }
+
+    @Benchmark
+    public void dispatchIntegerAndOptionalArguments() {
+        commandListener.onMessageCreate(integerMessage);
+    }
+
+    @Benchmark
+    public void dispatchDateArgument() {
+        commandListener.onMessageCreate(dateMessage);
+    }
+
+    @Benchmark
+    public void dispatchInvalidDateArgument() {
+        commandListener.onMessageCreate(invalidDateMessage);
+    }
+
+    @Benchmark
+    public void dispatchBooleanArgument() {
+        commandListener.onMessageCreate(booleanMessage);
+    }
+
+    @Benchmark
+    public void dispatchSingleStringArguments() {
+        commandListener.onMessageCreate(singleStringsMessage);
+    }
+
+    @Benchmark
+    public void dispatchCustomCommand() {
+        commandListener.onMessageCreate(customCommandMessage);
+    }
+
+    @Benchmark
+    public void dispatchUnknownCommand() {
+        commandListener.onMessageCreate(unknownCommandMessage);
+    }
+
+    @Benchmark
+    public void ignoreMessageWithoutPrefix() {
+        commandListener.onMessageCreate(plainMessage);
+    }
+
+    @Benchmark
+    public CustomCommand lookupServerCustomCommand() {
+        return customCommandComponent.getCustomCommand(SERVER_SNOWFLAKE, "rules");
+    }
+
+    @Benchmark
+    public CustomCommand lookupGlobalCustomCommand() {
+        return customCommandComponent.getCustomCommand(SERVER_SNOWFLAKE, "custom3_0");
+    }
+
+    @Benchmark
+    public CustomCommand lookupMissingCustomCommand() {
+        return customCommandComponent.getCustomCommand(SERVER_SNOWFLAKE, "missing");
+    }
+
+    @Benchmark
+    public String commandHelpFormat() {
+        return helpCommand.getCommandHelpFormat();
+    }
+
+    /**
+     * Create a message that is sent by an administrator in a server
+     *
+     * @param content the content of the message
+     * @return the event of the message
+     */
+    private static MessageCreateEvent mockMessage(String content) {
+        MessageCreateEvent messageCreateEvent = mock(MessageCreateEvent.class, withSettings().stubOnly());
+        Message message = mock(Message.class, withSettings().stubOnly());
+        MessageAuthor messageAuthor = mock(MessageAuthor.class, withSettings().stubOnly());
+        Server server = mock(Server.class, withSettings().stubOnly());
+        TextChannel textChannel = mock(TextChannel.class, withSettings().stubOnly());
+
+        when(message.getContent()).thenReturn(content);
+        when(messageAuthor.isBotUser()).thenReturn(false);
+        when(messageAuthor.isServerAdmin()).thenReturn(true);
+        when(messageAuthor.isBotOwner()).thenReturn(true);
+        when(messageAuthor.getDiscriminatedName()).thenReturn("Wesley#2772");
+        when(server.getId()).thenReturn(SERVER_SNOWFLAKE);
+
+        when(messageCreateEvent.getMessage()).thenReturn(message);
+        when(messageCreateEvent.getMessageAuthor()).thenReturn(messageAuthor);
+        when(messageCreateEvent.getServer()).thenReturn(Optional.of(server));
+        when(messageCreateEvent.isServerMessage()).thenReturn(true);
+        when(messageCreateEvent.getChannel()).thenReturn(textChannel);
+
+        return messageCreateEvent;
+    }
+
+    /**
+     * Accepts every command without running it, so only the parsing and dispatching is measured
+     */
+    private static class CountingCommandExecutor extends CommandExecutor {
+        private long submittedCommands = 0;
+
+        private CountingCommandExecutor() {
+            super(1, 1, 1, false);
+        }
+
+        @Override
+        public boolean submit(long laneSnowflake, Runnable task) {
+            submittedCommands++;
+            return true;
+        }
+    }
+
+    /**
+     * A command that does nothing, with the given arguments
+     */
+    private static class BenchmarkCommand extends Command {
+        private BenchmarkCommand(String commandName, CommandArgument... commandArguments) {
+            this.commandName = commandName;
+            this.description = "Benchmark command " + commandName;
+            this.group = "Benchmark";
+
+            this.requiresAdmin = true;
+            this.guildOnly = true;
+
+            this.commandArguments.addAll(List.of(commandArguments));
+        }
+
+        @Override
+        public void execute(MessageCreateEvent messageCreateEvent) {
+        }
+
+        @Override
+        public void execute(MessageCreateEvent messageCreateEvent, List<CommandParameter> commandParams) {
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.benchmarks;
+
+import com.dirk.models.SpreadsheetGateway;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesResponse;
+import com.google.api.services.sheets.v4.model.UpdateValuesResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the spreadsheets in memory instead of on Google Sheets, so the tournament flows can be benchmarked without
+ * a network connection. Every request can be delayed and can fail at random to act like the real API
+ */
+public class InMemorySpreadsheetGateway implements SpreadsheetGateway {
+    private static final Pattern A1_RANGE = Pattern.compile("([A-Za-z]+)([0-9]+)?(?::([A-Za-z]+)([0-9]+)?)?");
+
+    private final long latencyMillis;
+    private final long latencyJitterMillis;
+    private final double errorRate;
+    private final int errorStatusCode;
+    // The cells of every tab, by spreadsheet and tab
+    private final Map<String, List<List<Object>>> tabs = new HashMap<>();
+
+    public InMemorySpreadsheetGateway(long latencyMillis, long latencyJitterMillis, double errorRate, int errorStatusCode) {
+        this.latencyMillis = latencyMillis;
+        this.latencyJitterMillis = latencyJitterMillis;
+        this.errorRate = errorRate;
+        this.errorStatusCode = errorStatusCode;
+    }
+
+    @Override
+    public List<List<Object>> getDataFromRange(String spreadsheetId, String tab, String range) throws IOException {
+        simulateRequest();
+
+        synchronized (this) {
+            return readRange(getTab(spreadsheetId, tab), range);
+        }
+    }
+
+    @Override
+    public List<List<List<Object>>> getDataFromRanges(String spreadsheetId, String tab, List<String> ranges) throws IOException {
+        simulateRequest();
+
+        List<List<List<Object>>> allValues = new ArrayList<>();
+
+        synchronized (this) {
+            List<List<Object>> cells = getTab(spreadsheetId, tab);
+
+            for (String range : ranges) {
+                allValues.add(readRange(cells, range));
+            }
+        }
+
+        return allValues;
+    }
+
+    @Override
+    public UpdateValuesResponse updateDataOnSheet(String spreadsheetId, String tab, String range, String value) throws IOException {
+        simulateRequest();
+
+        synchronized (this) {
+            writeCell(getTab(spreadsheetId, tab), range, value);
+        }
+
+        return new UpdateValuesResponse()
+                .setSpreadsheetId(spreadsheetId)
+                .setUpdatedRange(tab + "!" + range)
+                .setUpdatedCells(1);
+    }
+
+    @Override
+    public BatchUpdateValuesResponse updateDataOnSheet(String spreadsheetId, String tab, Map<String, String> valuePerRange) throws IOException {
+        simulateRequest();
+
+        synchronized (this) {
+            List<List<Object>> cells = getTab(spreadsheetId, tab);
+
+            for (Map.Entry<String, String> rangeValue : valuePerRange.entrySet()) {
+                writeCell(cells, rangeValue.getKey(), rangeValue.getValue());
+            }
+        }
+
+        return new BatchUpdateValuesResponse()
+                .setSpreadsheetId(spreadsheetId)
+                .setTotalUpdatedCells(valuePerRange.size());
+    }
+
+    /**
+     * Fill the tab with the given values without any latency or errors, starting at the given cell
+     *
+     * @param spreadsheetId the spreadsheet to fill
+     * @param tab           the tab to fill
+     * @param startCell     the top left cell of the values, such as A2
+     * @param values        the values row by row
+     */
+    public synchronized void setValues(String spreadsheetId, String tab, String startCell, List<List<Object>> values) {
+        CellRange start = CellRange.parse(startCell);
+        List<List<Object>> cells = getTab(spreadsheetId, tab);
+
+        for (int row = 0; row < values.size(); row++) {
+            List<Object> rowValues = values.get(row);
+
+            for (int column = 0; column < rowValues.size(); column++) {
+                setCell(cells, start.startRow + row, start.startColumn + column, rowValues.get(column));
+            }
+        }
+    }
+
+    /**
+     * Remove every spreadsheet
+     */
+    public synchronized void clear() {
+        tabs.clear();
+    }
+
+    /**
+     * Wait for the configured latency and fail when an error has to be injected
+     *
+     * @throws IOException the injected error
+     */
+    private void simulateRequest() throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = latencyMillis + (latencyJitterMillis > 0 ? random.nextLong(latencyJitterMillis + 1) : 0);
+
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while simulating a spreadsheet request");
+            }
+        }
+
+        if (errorRate > 0 && random.nextDouble() < errorRate) {
+            throw new HttpResponseException.Builder(errorStatusCode, "Injected error", new HttpHeaders()).build();
+        }
+    }
+
+    private List<List<Object>> getTab(String spreadsheetId, String tab) {
+        return tabs.computeIfAbsent(spreadsheetId + "/" + tab, key -> new ArrayList<>());
+    }
+
+    /**
+     * Read the range like the Sheets API does, leaving out the trailing empty cells of every row and the
+     * trailing empty rows
+     *
+     * @param cells the cells of the tab
+     * @param range the range to read
+     * @return the values of the range or null when it is empty
+     */
+    private static List<List<Object>> readRange(List<List<Object>> cells, String range) {
+        CellRange cellRange = CellRange.parse(range);
+        int endRow = Math.min(cellRange.endRow, cells.size() - 1);
+
+        List<List<Object>> values = new ArrayList<>();
+
+        for (int row = cellRange.startRow; row <= endRow; row++) {
+            List<Object> rowCells = cells.get(row);
+            List<Object> rowValues = new ArrayList<>();
+
+            for (int column = cellRange.startColumn; column <= Math.min(cellRange.endColumn, rowCells.size() - 1); column++) {
+                rowValues.add(rowCells.get(column));
+            }
+
+            while (!rowValues.isEmpty() && rowValues.get(rowValues.size() - 1) == null) {
+                rowValues.remove(rowValues.size() - 1);
+            }
+
+            values.add(rowValues);
+        }
+
+        while (!values.isEmpty() && values.get(values.size() - 1).isEmpty()) {
+            values.remove(values.size() - 1);
+        }
+
+        // Empty cells between values are returned as empty strings
+        for (List<Object> rowValues : values) {
+            Collections.replaceAll(rowValues, null, "");
+        }
+
+        return values.isEmpty() ? null : values;
+    }
+
+    /**
+     * Write the value to the first cell of the range, an empty value clears the cell
+     *
+     * @param cells the cells of the tab
+     * @param range the range to write to
+     * @param value the value to write
+     */
+    private static void writeCell(List<List<Object>> cells, String range, String value) {
+        CellRange cellRange = CellRange.parse(range);
+
+        setCell(cells, cellRange.startRow, cellRange.startColumn, value == null || value.isEmpty() ? null : value);
+    }
+
+    private static void setCell(List<List<Object>> cells, int row, int column, Object value) {
+        while (cells.size() <= row) {
+            cells.add(new ArrayList<>());
+        }
+
+        List<Object> rowCells = cells.get(row);
+
+        while (rowCells.size() <= column) {
+            rowCells.add(null);
+        }
+
+        rowCells.set(column, value);
+    }
+
+    /**
+     * A range in A1 notation, with the rows and columns starting at 0. A range without a row runs to the end of the tab
+     */
+    private static class CellRange {
+        private final int startColumn;
+        private final int startRow;
+        private final int endColumn;
+        private final int endRow;
+
+        private CellRange(int startColumn, int startRow, int endColumn, int endRow) {
+            this.startColumn = startColumn;
+            this.startRow = startRow;
+            this.endColumn = endColumn;
+            this.endRow = endRow;
+        }
+
+        private static CellRange parse(String range) {
+            Matcher matcher = A1_RANGE.matcher(range);
+
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException("Invalid range " + range);
+            }
+
+            int startColumn = parseColumn(matcher.group(1));
+            int startRow = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) - 1 : 0;
+
+            // A single cell
+            if (matcher.group(3) == null) {
+                return new CellRange(startColumn, startRow, startColumn, matcher.group(2) != null ? startRow : Integer.MAX_VALUE);
+            }
+
+            int endColumn = parseColumn(matcher.group(3));
+            int endRow = matcher.group(4) != null ? Integer.parseInt(matcher.group(4)) - 1 : Integer.MAX_VALUE;
+
+            return new CellRange(startColumn, startRow, endColumn, endRow);
+        }
+
+        private static int parseColumn(String column) {
+            int index = 0;
+
+            for (char letter : column.toUpperCase(Locale.ROOT).toCharArray()) {
+                index = index * 26 + (letter - 'A' + 1);
+            }
+
+            return index - 1;
+        }
+    }
+}
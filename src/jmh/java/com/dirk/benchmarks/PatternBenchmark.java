@@ -0,0 +1,103 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.benchmarks;
+
+import com.dirk.helper.DateFormats;
+import com.dirk.helper.Patterns;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares compiling the regular expressions and date formats on every call with reusing the shared instances
+ * from {@link Patterns} and {@link DateFormats}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatternBenchmark {
+    private static final String ROLE_MENTION = "<@&123456789012345678>";
+    private static final String SPREADSHEET_URL = "https://docs.google.com/spreadsheets/d/1yN-vwlhBEpdRJzSDRYM4IToLaXulLRrW_LYT-Hitd64/edit#gid=193799805";
+    private static final String SHEET_DATE_TIME = "05/12/2020 18:00";
+
+    @Benchmark
+    public String roleMentionCompiledPerCall() {
+        Pattern rolePattern = Pattern.compile("<@&([0-9]+)>");
+        Matcher matcher = rolePattern.matcher(ROLE_MENTION);
+
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    @Benchmark
+    public String roleMentionPrecompiled() {
+        Matcher matcher = Patterns.ROLE_MENTION.matcher(ROLE_MENTION);
+
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    @Benchmark
+    public String spreadsheetIdCompiledPerCall() {
+        Pattern spreadsheetPattern = Pattern.compile("https://docs.google.com/spreadsheets/d/([A-Za-z0-9-_]+)");
+        Matcher matcher = spreadsheetPattern.matcher(SPREADSHEET_URL);
+
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    @Benchmark
+    public String spreadsheetIdPrecompiled() {
+        Matcher matcher = Patterns.SPREADSHEET_URL.matcher(SPREADSHEET_URL);
+
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    @Benchmark
+    public Date sheetDateSimpleDateFormat() throws ParseException {
+        SimpleDateFormat sheetFormat = new SimpleDateFormat("dd/MM/yyyy H:m");
+
+        return sheetFormat.parse(SHEET_DATE_TIME);
+    }
+
+    @Benchmark
+    public Date sheetDateDateTimeFormatter() {
+        return DateFormats.toDate(LocalDateTime.parse(SHEET_DATE_TIME, DateFormats.getSheetDateYearTimeFormatter("%d/%m")));
+    }
+}
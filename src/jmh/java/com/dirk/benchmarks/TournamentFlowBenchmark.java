@@ -0,0 +1,277 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.benchmarks;
+
+import com.dirk.helper.DateFormats;
+import com.dirk.helper.TournamentHelper;
+import com.dirk.meta.MatchLocks;
+import com.dirk.meta.MatchRowIndexCache;
+import com.dirk.meta.MatchRowReader;
+import com.dirk.meta.TournamentMatchTimer;
+import com.dirk.meta.TournamentSynchronizer;
+import com.dirk.models.CachingSpreadsheetGateway;
+import com.dirk.models.ScheduledSpreadsheetGateway;
+import com.dirk.models.SheetRangeCache;
+import com.dirk.models.SheetsRequestScheduler;
+import com.dirk.models.SpreadsheetGateway;
+import com.dirk.models.tournament.SheetMatchRow;
+import com.dirk.models.tournament.SheetSchedule;
+import com.dirk.models.tournament.SynchronizationResult;
+import com.dirk.models.tournament.Match;
+import com.dirk.models.tournament.Tournament;
+import com.dirk.repositories.MatchRepository;
+import com.dirk.repositories.TournamentRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Drives a tournament of 1000 matches through the synchronization, take, drop and reschedule flows. The requests go
+ * through the same cache and request scheduler as in the bot, with the in memory spreadsheet gateway underneath
+ * instead of Google Sheets. The flows are the same as in the commands, without Discord and the database
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TournamentFlowBenchmark {
+    private static final String SERVER_SNOWFLAKE = "123456789012345678";
+    private static final String SPREADSHEET_ID = "1yN-vwlhBEpdRJzSDRYM4IToLaXulLRrW_LYT-Hitd64";
+    private static final String SCHEDULE_TAB = "Schedule";
+    private static final String REFEREE = "Referee";
+
+    @Param({"1000"})
+    public int matchCount;
+
+    // The time every spreadsheet request takes
+    @Param({"0", "5"})
+    public long latencyMillis;
+
+    // The chance that a spreadsheet request fails with a server error and has to be retried
+    @Param({"0", "0.01"})
+    public double errorRate;
+
+    private InMemorySpreadsheetGateway inMemorySpreadsheetGateway;
+    private SpreadsheetGateway spreadsheetGateway;
+    private TournamentMatchTimer tournamentMatchTimer;
+    private TournamentSynchronizer tournamentSynchronizer;
+    private MatchRowReader matchRowReader;
+    private MatchLocks matchLocks;
+    private Tournament tournament;
+
+    private LocalDateTime originalDate;
+    private LocalDateTime proposedDate;
+    private int nextMatch = 0;
+
+    @Setup
+    public void setup() throws IOException {
+        inMemorySpreadsheetGateway = new InMemorySpreadsheetGateway(latencyMillis, 0, errorRate, 503);
+
+        // A quota that is never reached and short retries, so only the overhead of the scheduler is measured
+        SheetsRequestScheduler requestScheduler = new SheetsRequestScheduler(Integer.MAX_VALUE, Integer.MAX_VALUE, 5, 1, 10);
+        spreadsheetGateway = new CachingSpreadsheetGateway(
+                new ScheduledSpreadsheetGateway(inMemorySpreadsheetGateway, requestScheduler),
+                new SheetRangeCache(5000, 500)
+        );
+
+        tournament = createTournament();
+
+        // Late in the year, so the matches are scheduled but not notified while benchmarking
+        originalDate = LocalDateTime.now().withMonth(12).withDayOfMonth(20).withHour(18).withMinute(0).withSecond(0).withNano(0);
+        proposedDate = originalDate.plusDays(1).plusHours(2);
+
+        List<List<Object>> rows = new ArrayList<>();
+
+        for (int i = 1; i <= matchCount; i++) {
+            rows.add(Arrays.asList(
+                    String.valueOf(i),
+                    DateFormats.getSheetDateFormatter(tournament.getDateFormat()).format(originalDate),
+                    DateFormats.SHEET_TIME.format(originalDate),
+                    "Player " + (i * 2 - 1),
+                    "Player " + (i * 2),
+                    null,
+                    null,
+                    null
+            ));
+        }
+
+        inMemorySpreadsheetGateway.setValues(SPREADSHEET_ID, SCHEDULE_TAB, "A2", rows);
+
+        // The tournament is kept in memory by the benchmark, the repositories store nothing
+        TournamentRepository tournamentRepository = mock(TournamentRepository.class, withSettings().stubOnly());
+        when(tournamentRepository.getTournamentByServerSnowflake(SERVER_SNOWFLAKE)).thenReturn(tournament);
+        when(tournamentRepository.save(any(Tournament.class))).then(returnsFirstArg());
+
+        MatchRepository matchRepository = mock(MatchRepository.class, withSettings().stubOnly());
+        when(matchRepository.save(any(Match.class))).then(returnsFirstArg());
+
+        MatchRowIndexCache matchRowIndexCache = new MatchRowIndexCache();
+
+        tournamentMatchTimer = new TournamentMatchTimer(matchRepository, null, null);
+        tournamentSynchronizer = new TournamentSynchronizer(tournamentRepository, spreadsheetGateway, matchRowIndexCache, tournamentMatchTimer);
+        matchRowReader = new MatchRowReader(spreadsheetGateway, tournamentSynchronizer, matchRowIndexCache);
+        matchLocks = new MatchLocks();
+
+        // Store all matches, like the first synchronization of a new tournament
+        tournamentSynchronizer.synchronize(tournament);
+    }
+
+    @TearDown
+    public void tearDown() {
+        tournamentMatchTimer.shutdown();
+    }
+
+    /**
+     * Read the whole schedule and compare it with the stored matches, like the synchronize command
+     */
+    @Benchmark
+    public SynchronizationResult synchronize() throws IOException {
+        return tournamentSynchronizer.synchronize(tournament);
+    }
+
+    /**
+     * Read the whole schedule and skip the comparison when it hasn't changed, like the background polling
+     */
+    @Benchmark
+    public SynchronizationResult synchronizeIfChanged() throws IOException {
+        SheetSchedule sheetSchedule = TournamentHelper.getSheetSchedule(spreadsheetGateway, tournament);
+
+        if (!tournamentSynchronizer.needsSynchronization(SERVER_SNOWFLAKE, sheetSchedule)) {
+            return null;
+        }
+
+        return tournamentSynchronizer.synchronize(SERVER_SNOWFLAKE, sheetSchedule);
+    }
+
+    /**
+     * Take a match as a referee and drop it again, like the take and drop commands
+     */
+    @Benchmark
+    public void takeAndDropReferee() throws IOException {
+        String matchId = nextMatchId();
+        Lock matchLock = matchLocks.getLock(SPREADSHEET_ID, matchId);
+        matchLock.lock();
+
+        try {
+            setReferee(matchRowReader.readMatchRow(tournament, matchId), REFEREE);
+            setReferee(matchRowReader.readMatchRow(tournament, matchId), "");
+        } finally {
+            matchLock.unlock();
+        }
+    }
+
+    /**
+     * Move a match to another date and back again, like accepting a reschedule request
+     */
+    @Benchmark
+    public void rescheduleAndRevert() throws IOException {
+        String matchId = nextMatchId();
+
+        reschedule(matchRowReader.readMatchRow(tournament, matchId), proposedDate);
+        reschedule(matchRowReader.readMatchRow(tournament, matchId), originalDate);
+    }
+
+    private void setReferee(SheetMatchRow sheetMatchRow, String referee) throws IOException {
+        spreadsheetGateway.updateDataOnSheet(SPREADSHEET_ID, SCHEDULE_TAB, TournamentHelper.getRangeFromRow(tournament.getRefereeRow(), sheetMatchRow.getRowIndex()), referee);
+        tournamentSynchronizer.applyMatchChange(tournament, sheetMatchRow, row -> row.setReferee(referee));
+    }
+
+    private void reschedule(SheetMatchRow sheetMatchRow, LocalDateTime date) throws IOException {
+        String newDate = DateFormats.getSheetDateFormatter(tournament.getDateFormat()).format(date);
+        String newTime = DateFormats.SHEET_TIME.format(date);
+
+        Map<String, String> newDateTime = new LinkedHashMap<>();
+        newDateTime.put(TournamentHelper.getRangeFromRow(tournament.getDateRow(), sheetMatchRow.getRowIndex()), newDate);
+        newDateTime.put(TournamentHelper.getRangeFromRow(tournament.getTimeRow(), sheetMatchRow.getRowIndex()), newTime);
+
+        spreadsheetGateway.updateDataOnSheet(SPREADSHEET_ID, SCHEDULE_TAB, newDateTime);
+        tournamentSynchronizer.applyMatchChange(tournament, sheetMatchRow, row -> {
+            row.setDate(newDate);
+            row.setTime(newTime);
+        });
+    }
+
+    private String nextMatchId() {
+        nextMatch = nextMatch % matchCount + 1;
+
+        return String.valueOf(nextMatch);
+    }
+
+    private static Tournament createTournament() {
+        Tournament tournament = new Tournament();
+
+        tournament.setServerSnowflake(SERVER_SNOWFLAKE);
+        tournament.setName("Benchmark tournament");
+        tournament.setSpreadsheet("https://docs.google.com/spreadsheets/d/" + SPREADSHEET_ID + "/edit#gid=0");
+        tournament.setScheduleTab(SCHEDULE_TAB);
+        tournament.setIsTeamTournament(false);
+        tournament.setDateFormat("%d/%m");
+
+        tournament.setMatchIdRow("A2:A");
+        tournament.setDateRow("B2:B");
+        tournament.setTimeRow("C2:C");
+        tournament.setPlayerOneRow("D2:D");
+        tournament.setPlayerTwoRow("E2:E");
+        tournament.setRefereeRow("F2:F");
+        tournament.setStreamerRow("G2:G");
+        tournament.setCommentatorRow("H2:H");
+
+        tournament.setAdminRoleSnowflake("1");
+        tournament.setRefereeRoleSnowflake("2");
+        tournament.setCommentatorRoleSnowflake("3");
+        tournament.setStreamerRoleSnowflake("4");
+        tournament.setRescheduleNotifierChannelSnowflake("5");
+        tournament.setMatchNotifierChannelSnowflake("6");
+
+        return tournament;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dirk;
+
+import com.dirk.helper.Log;
+import com.dirk.models.CachingSpreadsheetGateway;
+import com.dirk.models.GoogleSpreadsheetAuthenticator;
+import com.dirk.models.ScheduledSpreadsheetGateway;
+import com.dirk.models.SheetRangeCache;
+import com.dirk.models.SheetsRequestScheduler;
+import com.dirk.models.SpreadsheetGateway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Creates the gateway to Google Sheets. Reads are served from the cache where possible, the requests that are left
+ * are spread over the quota and only then sent to the API
+ */
+@Configuration
+public class SpreadsheetConfiguration {
+    @Value("${google.sheets.cache.ttl:5000}")
+    private long cacheTtl;
+    @Value("${google.sheets.cache.max-entries:500}")
+    private int cacheMaxEntries;
+    @Value("${google.sheets.quota.requests-per-minute:60}")
+    private int requestsPerMinute;
+    @Value("${google.sheets.quota.spreadsheet-requests-per-minute:30}")
+    private int spreadsheetRequestsPerMinute;
+    @Value("${google.sheets.retry.max-attempts:5}")
+    private int maxAttempts;
+    @Value("${google.sheets.retry.initial-backoff:1000}")
+    private long initialBackoff;
+    @Value("${google.sheets.retry.max-backoff:32000}")
+    private long maxBackoff;
+
+    @Bean
+    public SheetRangeCache getSheetRangeCache() {
+        return new SheetRangeCache(cacheTtl, cacheMaxEntries);
+    }
+
+    @Bean
+    public SheetsRequestScheduler getSheetsRequestScheduler() {
+        return new SheetsRequestScheduler(requestsPerMinute, spreadsheetRequestsPerMinute, maxAttempts, initialBackoff, maxBackoff);
+    }
+
+    @Bean
+    public SpreadsheetGateway getSpreadsheetGateway(SheetRangeCache sheetRangeCache, SheetsRequestScheduler requestScheduler) {
+        return new CachingSpreadsheetGateway(
+                new ScheduledSpreadsheetGateway(new GoogleSpreadsheetAuthenticator(), requestScheduler),
+                sheetRangeCache
+        );
+    }
+
+    /**
+     * Log how well the cache of the read ranges performs and how many requests had to wait for the quota
+     */
+    @Scheduled(fixedDelay = 15 * 60 * 1000)
+    public void logStatistics() {
+        SheetRangeCache sheetRangeCache = getSheetRangeCache();
+        SheetsRequestScheduler requestScheduler = getSheetsRequestScheduler();
+
+        long hits = sheetRangeCache.getHits();
+        long misses = sheetRangeCache.getMisses();
+
+        if (hits + misses > 0) {
+            Log.info("Spreadsheet cache: " + hits + " hits, " + misses + " misses (" + (hits * 100 / (hits + misses)) + "% hit rate), " +
+                    sheetRangeCache.getEvictions() + " evictions, " + sheetRangeCache.getSize() + " cached ranges");
+        }
+
+        long peakQueueDepth = requestScheduler.getPeakQueueDepth(true);
+
+        if (peakQueueDepth > 0 || requestScheduler.getRetries() > 0) {
+            Log.info("Spreadsheet requests: " + requestScheduler.getQueueDepth() + " waiting, " + peakQueueDepth + " waiting at most, " +
+                    requestScheduler.getRetries() + " retries");
+        }
+    }
+}
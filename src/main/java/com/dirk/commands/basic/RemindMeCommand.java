@@ -34,10 +34,11 @@ import org.javacord.api.event.message.MessageCreateEvent;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Date;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 @Component
 public class RemindMeCommand extends Command {
@@ -105,6 +106,6 @@ public class RemindMeCommand extends Command {
 
         messageCreateEvent.getChannel().sendMessage(EmbedHelper.genericSuccessEmbed("I will remind you in " + timeAmount.getValue() + " " + timeUnitString + "!", null).setAuthor("Reminder for " + messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
 
-        remindMeComponent.getScheduler().schedule(() -> messageCreateEvent.getMessageAuthor().asUser().ifPresent(user -> user.sendMessage(EmbedHelper.reminderEmbed((String) message.getValue()))), delay, TimeUnit.SECONDS);
+        remindMeComponent.addReminder(messageCreateEvent.getMessageAuthor().getId(), (String) message.getValue(), Date.from(Instant.now().plusSeconds(delay)));
     }
 }
@@ -24,6 +24,7 @@
 
 package com.dirk.commands.benelux;
 
+import com.dirk.helper.DateFormats;
 import com.dirk.helper.EmbedHelper;
 import com.dirk.models.command.Command;
 import com.dirk.models.command.CommandArgument;
@@ -36,7 +37,6 @@ import org.javacord.api.event.message.MessageCreateEvent;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 
@@ -72,7 +72,7 @@ public class BirthdayCommand extends Command {
         birthdayRepository.save(birthday);
 
         // Parse the date to a readable format
-        String parsedDate = new SimpleDateFormat("dd MMMMM, yyyy").format(commandParams.get(0).getValue());
+        String parsedDate = DateFormats.BIRTHDAY.format(DateFormats.toLocalDateTime((Date) commandParams.get(0).getValue()));
 
         messageCreateEvent.getChannel().sendMessage(EmbedHelper.genericSuccessEmbed("Updated your birthday to " + parsedDate + ".", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
     }
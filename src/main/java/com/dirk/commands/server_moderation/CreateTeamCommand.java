@@ -25,6 +25,7 @@
 package com.dirk.commands.server_moderation;
 
 import com.dirk.helper.EmbedHelper;
+import com.dirk.helper.Patterns;
 import com.dirk.models.command.Command;
 import com.dirk.models.command.CommandArgument;
 import com.dirk.models.command.CommandArgumentType;
@@ -60,7 +61,7 @@ public class CreateTeamCommand extends Command {
     @Override
     public void execute(MessageCreateEvent messageCreateEvent, List<CommandParameter> commandParams) {
         String commandString = (String) commandParams.get(0).getValue();
-        List<String> splittedString = Arrays.stream(commandString.split("(?=<@[0-9!]+>)")).map(String::trim).collect(Collectors.toList());
+        List<String> splittedString = Arrays.stream(Patterns.USER_MENTION_START.split(commandString)).map(String::trim).collect(Collectors.toList());
         String teamName = splittedString.subList(0, 1).get(0);
         List<String> highlightedUsers = splittedString.subList(1, splittedString.size());
 
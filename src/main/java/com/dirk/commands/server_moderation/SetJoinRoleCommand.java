@@ -25,6 +25,7 @@
 package com.dirk.commands.server_moderation;
 
 import com.dirk.helper.EmbedHelper;
+import com.dirk.meta.GuildConfigurationCache;
 import com.dirk.models.command.Command;
 import com.dirk.models.command.CommandArgument;
 import com.dirk.models.command.CommandArgumentType;
@@ -41,9 +42,10 @@ import java.util.List;
 @Component
 public class SetJoinRoleCommand extends Command {
     private final ServerJoinRoleRepository serverJoinRoleRepository;
+    private final GuildConfigurationCache guildConfigurationCache;
 
     @Autowired
-    public SetJoinRoleCommand(ServerJoinRoleRepository serverJoinRoleRepository) {
+    public SetJoinRoleCommand(ServerJoinRoleRepository serverJoinRoleRepository, GuildConfigurationCache guildConfigurationCache) {
         this.commandName = "setjoinrole";
         this.description = "Give the user that just joined this guild the given role.";
         this.group = "Server moderation";
@@ -54,6 +56,7 @@ public class SetJoinRoleCommand extends Command {
         this.commandArguments.add(new CommandArgument("role highlight", "The role that will be given to the user (use the highlight, ie @User)", CommandArgumentType.SingleString));
 
         this.serverJoinRoleRepository = serverJoinRoleRepository;
+        this.guildConfigurationCache = guildConfigurationCache;
     }
 
     @Override
@@ -85,6 +88,7 @@ public class SetJoinRoleCommand extends Command {
         serverJoinRole.setServerSnowflake(server.getIdAsString());
 
         serverJoinRoleRepository.save(serverJoinRole);
+        guildConfigurationCache.invalidate(server.getId());
 
         messageCreateEvent.getChannel().sendMessage(EmbedHelper.genericSuccessEmbed("Users will now get the role <@&" + role + "> when they join this guild.", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
     }
@@ -25,6 +25,7 @@
 package com.dirk.commands.server_moderation;
 
 import com.dirk.helper.EmbedHelper;
+import com.dirk.meta.GuildConfigurationCache;
 import com.dirk.models.command.Command;
 import com.dirk.models.command.CommandArgument;
 import com.dirk.models.command.CommandArgumentType;
@@ -37,6 +38,7 @@ import org.javacord.api.entity.permission.PermissionsBuilder;
 import org.javacord.api.entity.permission.Role;
 import org.javacord.api.entity.server.Server;
 import org.javacord.api.event.message.MessageCreateEvent;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -46,7 +48,10 @@ public class SetupVerificationCommand extends Command {
     public static final String VERIFIED_ROLE = "Verified";
     public static final String VERIFICATION_CHANNEL_NAME = "verification";
 
-    public SetupVerificationCommand() {
+    private final GuildConfigurationCache guildConfigurationCache;
+
+    @Autowired
+    public SetupVerificationCommand(GuildConfigurationCache guildConfigurationCache) {
         this.commandName = "setupverification";
         this.description = "Setup verification so that everyone has to verify themselves before being able to talk in text channels.";
         this.group = "Server moderation";
@@ -55,6 +60,8 @@ public class SetupVerificationCommand extends Command {
         this.guildOnly = true;
 
         this.commandArguments.add(new CommandArgument("information channel", "Highlight the channel which should always be visible even though the user isn't verified yet.", CommandArgumentType.String));
+
+        this.guildConfigurationCache = guildConfigurationCache;
     }
 
     @Override
@@ -116,10 +123,12 @@ public class SetupVerificationCommand extends Command {
                                     .addPermissionOverwrite(newVerifiedRole, permissionVerifiedRole.build())
                                     .create()
                                     .whenComplete((verificationTextChannel, throwable1) -> {
+                                        guildConfigurationCache.invalidate(server.getId());
                                         updatePermission(server, newVerifiedRole, informationChannel.getName());
                                     });
                         });
             } else {
+                guildConfigurationCache.invalidate(server.getId());
                 updatePermission(server, verifiedRole, informationChannel.getName());
             }
 
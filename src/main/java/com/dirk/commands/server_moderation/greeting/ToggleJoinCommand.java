@@ -25,6 +25,7 @@
 package com.dirk.commands.server_moderation.greeting;
 
 import com.dirk.helper.EmbedHelper;
+import com.dirk.meta.GuildConfigurationCache;
 import com.dirk.models.command.Command;
 import com.dirk.models.command.CommandParameter;
 import com.dirk.models.entities.ServerTraffic;
@@ -39,9 +40,10 @@ import java.util.Objects;
 @Component
 public class ToggleJoinCommand extends Command {
     private final ServerTrafficRepository serverTrafficRepository;
+    private final GuildConfigurationCache guildConfigurationCache;
 
     @Autowired
-    public ToggleJoinCommand(ServerTrafficRepository serverTrafficRepository) {
+    public ToggleJoinCommand(ServerTrafficRepository serverTrafficRepository, GuildConfigurationCache guildConfigurationCache) {
         this.commandName = "togglejoin";
         this.description = "Enable or disable the traffic message for when someone joins this guild. The message will be send in the channel where it was executed from.";
         this.group = "Server moderation";
@@ -50,6 +52,7 @@ public class ToggleJoinCommand extends Command {
         this.guildOnly = true;
 
         this.serverTrafficRepository = serverTrafficRepository;
+        this.guildConfigurationCache = guildConfigurationCache;
     }
 
     @Override
@@ -66,6 +69,7 @@ public class ToggleJoinCommand extends Command {
         }
 
         serverTrafficRepository.save(serverTraffic);
+        guildConfigurationCache.invalidate(serverSnowflake);
 
         String parsedMessage = "You will " +
                 (serverTraffic.getShowJoining() ? "now receive" : "no longer") +
@@ -25,6 +25,7 @@
 package com.dirk.commands.server_moderation.greeting;
 
 import com.dirk.helper.EmbedHelper;
+import com.dirk.meta.GuildConfigurationCache;
 import com.dirk.models.command.Command;
 import com.dirk.models.command.CommandParameter;
 import com.dirk.models.entities.ServerTraffic;
@@ -39,9 +40,10 @@ import java.util.Objects;
 @Component
 public class ToggleLeaveCommand extends Command {
     private final ServerTrafficRepository serverTrafficRepository;
+    private final GuildConfigurationCache guildConfigurationCache;
 
     @Autowired
-    public ToggleLeaveCommand(ServerTrafficRepository serverTrafficRepository) {
+    public ToggleLeaveCommand(ServerTrafficRepository serverTrafficRepository, GuildConfigurationCache guildConfigurationCache) {
         this.commandName = "toggleleave";
         this.description = "Enable or disable the traffic message for when someone leaves this guild. The message will be send in the channel where it was executed from.";
         this.group = "Server moderation";
@@ -50,6 +52,7 @@ public class ToggleLeaveCommand extends Command {
         this.guildOnly = true;
 
         this.serverTrafficRepository = serverTrafficRepository;
+        this.guildConfigurationCache = guildConfigurationCache;
     }
 
     @Override
@@ -66,6 +69,7 @@ public class ToggleLeaveCommand extends Command {
         }
 
         serverTrafficRepository.save(serverTraffic);
+        guildConfigurationCache.invalidate(serverSnowflake);
 
         String parsedMessage = "You will " +
                 (serverTraffic.getShowLeaving() ? "now receive" : "no longer") +
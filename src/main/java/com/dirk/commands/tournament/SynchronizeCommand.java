@@ -26,9 +26,11 @@ package com.dirk.commands.tournament;
 
 import com.dirk.helper.EmbedHelper;
 import com.dirk.helper.TournamentHelper;
+import com.dirk.meta.TournamentSynchronizer;
 import com.dirk.models.GoogleSpreadsheetAuthenticator;
 import com.dirk.models.command.Command;
 import com.dirk.models.command.CommandParameter;
+import com.dirk.models.tournament.SynchronizationResult;
 import com.dirk.models.tournament.Tournament;
 import com.dirk.repositories.TournamentRepository;
 import org.javacord.api.entity.message.embed.EmbedBuilder;
@@ -43,9 +45,10 @@ import java.util.List;
 @Component
 public class SynchronizeCommand extends Command {
     private final TournamentRepository tournamentRepository;
+    private final TournamentSynchronizer tournamentSynchronizer;
 
     @Autowired
-    public SynchronizeCommand(final TournamentRepository tournamentRepository) {
+    public SynchronizeCommand(final TournamentRepository tournamentRepository, final TournamentSynchronizer tournamentSynchronizer) {
         this.commandName = "synchronize";
         this.description = "Synchronize the spreadsheet with the database so that everything is up to date";
         this.group = "Tournament management";
@@ -54,6 +57,7 @@ public class SynchronizeCommand extends Command {
         this.guildOnly = true;
 
         this.tournamentRepository = tournamentRepository;
+        this.tournamentSynchronizer = tournamentSynchronizer;
     }
 
     @Transactional
@@ -96,11 +100,11 @@ public class SynchronizeCommand extends Command {
         }
 
         try {
-            TournamentHelper.synchronizeSpreadsheet(tournamentRepository, existingTournament);
+            SynchronizationResult synchronizationResult = tournamentSynchronizer.synchronize(existingTournament);
 
             messageCreateEvent
                     .getChannel()
-                    .sendMessage(EmbedHelper.genericSuccessEmbed("Successfully synchronized all matches and teams.", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
+                    .sendMessage(EmbedHelper.genericSuccessEmbed("Successfully synchronized all matches and teams.\n\n" + synchronizationResult, messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
         } catch (Exception ex) {
             messageCreateEvent
                     .getChannel()
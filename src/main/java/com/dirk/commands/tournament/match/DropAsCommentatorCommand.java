@@ -26,11 +26,16 @@ package com.dirk.commands.tournament.match;
 
 import com.dirk.helper.EmbedHelper;
 import com.dirk.helper.TournamentHelper;
+import com.dirk.meta.MatchLocks;
+import com.dirk.meta.MatchRowReader;
+import com.dirk.meta.TournamentSynchronizer;
 import com.dirk.models.GoogleSpreadsheetAuthenticator;
+import com.dirk.models.SpreadsheetGateway;
 import com.dirk.models.command.Command;
 import com.dirk.models.command.CommandArgument;
 import com.dirk.models.command.CommandArgumentType;
 import com.dirk.models.command.CommandParameter;
+import com.dirk.models.tournament.SheetMatchRow;
 import com.dirk.models.tournament.Tournament;
 import com.dirk.repositories.TournamentRepository;
 import org.javacord.api.event.message.MessageCreateEvent;
@@ -41,13 +46,18 @@ import javax.transaction.Transactional;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
 
 @Component
 public class DropAsCommentatorCommand extends Command {
     private final TournamentRepository tournamentRepository;
+    private final SpreadsheetGateway spreadsheetGateway;
+    private final TournamentSynchronizer tournamentSynchronizer;
+    private final MatchRowReader matchRowReader;
+    private final MatchLocks matchLocks;
 
     @Autowired
-    public DropAsCommentatorCommand(TournamentRepository tournamentRepository) {
+    public DropAsCommentatorCommand(TournamentRepository tournamentRepository, SpreadsheetGateway spreadsheetGateway, TournamentSynchronizer tournamentSynchronizer, MatchRowReader matchRowReader, MatchLocks matchLocks) {
         this.commandName = "dropascommentator";
         this.description = "Drop a match as a commentator";
         this.group = "Tournament management";
@@ -58,6 +68,10 @@ public class DropAsCommentatorCommand extends Command {
         this.commandArguments.add(new CommandArgument("match id", "The id of the match to drop", CommandArgumentType.String));
 
         this.tournamentRepository = tournamentRepository;
+        this.spreadsheetGateway = spreadsheetGateway;
+        this.tournamentSynchronizer = tournamentSynchronizer;
+        this.matchRowReader = matchRowReader;
+        this.matchLocks = matchLocks;
     }
 
     @Override
@@ -103,79 +117,77 @@ public class DropAsCommentatorCommand extends Command {
             return;
         }
 
+        String spreadsheetId = TournamentHelper.getSpreadsheetIdFromUrl(existingTournament.getSpreadsheet());
+        String matchId = (String) commandParamMatchId.getValue();
+
+        // Read and write the staff of the match while holding its lock, so a concurrent take or drop can't overwrite this one
+        Lock matchLock = matchLocks.getLock(spreadsheetId, matchId);
+        matchLock.lock();
+
         try {
-            String spreadsheetId = TournamentHelper.getSpreadsheetIdFromUrl(existingTournament.getSpreadsheet());
-            GoogleSpreadsheetAuthenticator authenticator = new GoogleSpreadsheetAuthenticator(spreadsheetId);
-
-            List<List<Object>> allMatchIds = authenticator.getDataFromRange(existingTournament.getScheduleTab(), existingTournament.getMatchIdRow());
-
-            // Loop through all matches
-            for (int i = 0; i < allMatchIds.size(); i++) {
-                List<Object> currentMatch = allMatchIds.get(i);
-                String matchId = (String) currentMatch.stream().findFirst().orElse(null);
-
-                // Check if the match exists, should always be true
-                if (matchId != null) {
-                    // The entered match exists
-                    if (matchId.equals(commandParamMatchId.getValue())) {
-                        // Get the listed commentators from the spreadsheet
-                        String listedCommentators = TournamentHelper.getSheetRowAsString(authenticator, existingTournament.getScheduleTab(), TournamentHelper.getRangeFromRow(existingTournament.getCommentatorRow(), i));
-
-                        StringBuilder newCommentators = new StringBuilder();
-                        List<String> splitCommentators = new ArrayList<>();
-
-                        boolean commentatorFound = false;
-
-                        // Check if there is already a commentators
-                        if (listedCommentators != null) {
-                            splitCommentators = new ArrayList<>(Arrays.asList(listedCommentators.split("/")));
-
-                            // Check if there is at least one commentators in the list
-                            if (splitCommentators.size() >= 1) {
-                                for (int j = 0; j < splitCommentators.size(); j++) {
-                                    splitCommentators.set(j, splitCommentators.get(j).trim());
-                                }
-
-                                for (String splitCommentator : splitCommentators) {
-                                    if (splitCommentator.equals(messageCreateEvent.getMessageAuthor().getDisplayName())) {
-                                        commentatorFound = true;
-                                    }
-                                }
-                            }
-                        }
+            SheetMatchRow sheetMatchRow = matchRowReader.readMatchRow(existingTournament, matchId);
 
-                        // Commentator was not found, can't drop
-                        if (!commentatorFound) {
-                            messageCreateEvent
-                                    .getChannel()
-                                    .sendMessage(EmbedHelper.genericErrorEmbed("You are not listed as a **Commentator** on this match.", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
-                            return;
-                        }
+            // There was no match with the given match id
+            if (sheetMatchRow == null) {
+                messageCreateEvent
+                        .getChannel()
+                        .sendMessage(EmbedHelper.genericErrorEmbed("There seems to be no match with the id `" + matchId + "`", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
+                return;
+            }
+
+            // Get the listed commentators from the spreadsheet
+            String listedCommentators = sheetMatchRow.getCommentator();
 
-                        splitCommentators.remove(messageCreateEvent.getMessageAuthor().getDisplayName());
-                        newCommentators.append(String.join(" / ", splitCommentators));
+            StringBuilder newCommentators = new StringBuilder();
+            List<String> splitCommentators = new ArrayList<>();
 
-                        authenticator.updateDataOnSheet(existingTournament.getScheduleTab(), TournamentHelper.getRangeFromRow(existingTournament.getCommentatorRow(), i), newCommentators.toString());
+            boolean commentatorFound = false;
 
-                        TournamentHelper.synchronizeSpreadsheet(tournamentRepository, existingTournament);
+            // Check if there is already a commentators
+            if (listedCommentators != null) {
+                splitCommentators = new ArrayList<>(Arrays.asList(listedCommentators.split("/")));
 
-                        messageCreateEvent
-                                .getChannel()
-                                .sendMessage(EmbedHelper
-                                        .genericSuccessEmbed("**<@" + messageCreateEvent.getMessageAuthor().getId() + ">** successfully dropped the match " + matchId + " as a **Commentator**", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
-                        return;
+                // Check if there is at least one commentators in the list
+                if (splitCommentators.size() >= 1) {
+                    for (int j = 0; j < splitCommentators.size(); j++) {
+                        splitCommentators.set(j, splitCommentators.get(j).trim());
+                    }
+
+                    for (String splitCommentator : splitCommentators) {
+                        if (splitCommentator.equals(messageCreateEvent.getMessageAuthor().getDisplayName())) {
+                            commentatorFound = true;
+                        }
                     }
                 }
             }
 
-            // There was no match with the given match id
+            // Commentator was not found, can't drop
+            if (!commentatorFound) {
+                messageCreateEvent
+                        .getChannel()
+                        .sendMessage(EmbedHelper.genericErrorEmbed("You are not listed as a **Commentator** on this match.", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
+                return;
+            }
+
+            splitCommentators.remove(messageCreateEvent.getMessageAuthor().getDisplayName());
+            newCommentators.append(String.join(" / ", splitCommentators));
+
+            String commentators = newCommentators.toString();
+
+            spreadsheetGateway.updateDataOnSheet(spreadsheetId, existingTournament.getScheduleTab(), TournamentHelper.getRangeFromRow(existingTournament.getCommentatorRow(), sheetMatchRow.getRowIndex()), commentators);
+
+            tournamentSynchronizer.applyMatchChange(existingTournament, sheetMatchRow, row -> row.setCommentator(commentators));
+
             messageCreateEvent
                     .getChannel()
-                    .sendMessage(EmbedHelper.genericErrorEmbed("There seems to be no match with the id `" + commandParamMatchId.getValue() + "`", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
+                    .sendMessage(EmbedHelper
+                            .genericSuccessEmbed("**<@" + messageCreateEvent.getMessageAuthor().getId() + ">** successfully dropped the match " + matchId + " as a **Commentator**", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
         } catch (Exception ex) {
             messageCreateEvent
                     .getChannel()
                     .sendMessage(EmbedHelper.genericErrorEmbed(GoogleSpreadsheetAuthenticator.parseException(ex), messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
+        } finally {
+            matchLock.unlock();
         }
     }
 }
@@ -26,11 +26,16 @@ package com.dirk.commands.tournament.match;
 
 import com.dirk.helper.EmbedHelper;
 import com.dirk.helper.TournamentHelper;
+import com.dirk.meta.MatchLocks;
+import com.dirk.meta.MatchRowReader;
+import com.dirk.meta.TournamentSynchronizer;
 import com.dirk.models.GoogleSpreadsheetAuthenticator;
+import com.dirk.models.SpreadsheetGateway;
 import com.dirk.models.command.Command;
 import com.dirk.models.command.CommandArgument;
 import com.dirk.models.command.CommandArgumentType;
 import com.dirk.models.command.CommandParameter;
+import com.dirk.models.tournament.SheetMatchRow;
 import com.dirk.models.tournament.Tournament;
 import com.dirk.repositories.TournamentRepository;
 import org.javacord.api.event.message.MessageCreateEvent;
@@ -41,13 +46,18 @@ import javax.transaction.Transactional;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
 
 @Component
 public class DropAsRefereeCommand extends Command {
     private final TournamentRepository tournamentRepository;
+    private final SpreadsheetGateway spreadsheetGateway;
+    private final TournamentSynchronizer tournamentSynchronizer;
+    private final MatchRowReader matchRowReader;
+    private final MatchLocks matchLocks;
 
     @Autowired
-    public DropAsRefereeCommand(TournamentRepository tournamentRepository) {
+    public DropAsRefereeCommand(TournamentRepository tournamentRepository, SpreadsheetGateway spreadsheetGateway, TournamentSynchronizer tournamentSynchronizer, MatchRowReader matchRowReader, MatchLocks matchLocks) {
         this.commandName = "dropasreferee";
         this.description = "Drop a match as a referee";
         this.group = "Tournament management";
@@ -58,6 +68,10 @@ public class DropAsRefereeCommand extends Command {
         this.commandArguments.add(new CommandArgument("match id", "The id of the match to drop", CommandArgumentType.String));
 
         this.tournamentRepository = tournamentRepository;
+        this.spreadsheetGateway = spreadsheetGateway;
+        this.tournamentSynchronizer = tournamentSynchronizer;
+        this.matchRowReader = matchRowReader;
+        this.matchLocks = matchLocks;
     }
 
     @Override
@@ -103,79 +117,77 @@ public class DropAsRefereeCommand extends Command {
             return;
         }
 
+        String spreadsheetId = TournamentHelper.getSpreadsheetIdFromUrl(existingTournament.getSpreadsheet());
+        String matchId = (String) commandParamMatchId.getValue();
+
+        // Read and write the staff of the match while holding its lock, so a concurrent take or drop can't overwrite this one
+        Lock matchLock = matchLocks.getLock(spreadsheetId, matchId);
+        matchLock.lock();
+
         try {
-            String spreadsheetId = TournamentHelper.getSpreadsheetIdFromUrl(existingTournament.getSpreadsheet());
-            GoogleSpreadsheetAuthenticator authenticator = new GoogleSpreadsheetAuthenticator(spreadsheetId);
-
-            List<List<Object>> allMatchIds = authenticator.getDataFromRange(existingTournament.getScheduleTab(), existingTournament.getMatchIdRow());
-
-            // Loop through all matches
-            for (int i = 0; i < allMatchIds.size(); i++) {
-                List<Object> currentMatch = allMatchIds.get(i);
-                String matchId = (String) currentMatch.stream().findFirst().orElse(null);
-
-                // Check if the match exists, should always be true
-                if (matchId != null) {
-                    // The entered match exists
-                    if (matchId.equals(commandParamMatchId.getValue())) {
-                        // Get the listed referees from the spreadsheet
-                        String listedReferees = TournamentHelper.getSheetRowAsString(authenticator, existingTournament.getScheduleTab(), TournamentHelper.getRangeFromRow(existingTournament.getRefereeRow(), i));
-
-                        StringBuilder newReferees = new StringBuilder();
-                        List<String> splitReferees = new ArrayList<>();
-
-                        boolean refereeFound = false;
-
-                        // Check if there is already a referees
-                        if (listedReferees != null) {
-                            splitReferees = new ArrayList<>(Arrays.asList(listedReferees.split("/")));
-
-                            // Check if there is at least one referees in the list
-                            if (splitReferees.size() >= 1) {
-                                for (int j = 0; j < splitReferees.size(); j++) {
-                                    splitReferees.set(j, splitReferees.get(j).trim());
-                                }
-
-                                for (String splitReferee : splitReferees) {
-                                    if (splitReferee.equals(messageCreateEvent.getMessageAuthor().getDisplayName())) {
-                                        refereeFound = true;
-                                    }
-                                }
-                            }
-                        }
+            SheetMatchRow sheetMatchRow = matchRowReader.readMatchRow(existingTournament, matchId);
 
-                        // Referee was not found, can't drop
-                        if (!refereeFound) {
-                            messageCreateEvent
-                                    .getChannel()
-                                    .sendMessage(EmbedHelper.genericErrorEmbed("You are not listed as a **Referee** on this match.", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
-                            return;
-                        }
+            // There was no match with the given match id
+            if (sheetMatchRow == null) {
+                messageCreateEvent
+                        .getChannel()
+                        .sendMessage(EmbedHelper.genericErrorEmbed("There seems to be no match with the id `" + matchId + "`", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
+                return;
+            }
+
+            // Get the listed referees from the spreadsheet
+            String listedReferees = sheetMatchRow.getReferee();
 
-                        splitReferees.remove(messageCreateEvent.getMessageAuthor().getDisplayName());
-                        newReferees.append(String.join(" / ", splitReferees));
+            StringBuilder newReferees = new StringBuilder();
+            List<String> splitReferees = new ArrayList<>();
 
-                        authenticator.updateDataOnSheet(existingTournament.getScheduleTab(), TournamentHelper.getRangeFromRow(existingTournament.getRefereeRow(), i), newReferees.toString());
+            boolean refereeFound = false;
 
-                        TournamentHelper.synchronizeSpreadsheet(tournamentRepository, existingTournament);
+            // Check if there is already a referees
+            if (listedReferees != null) {
+                splitReferees = new ArrayList<>(Arrays.asList(listedReferees.split("/")));
 
-                        messageCreateEvent
-                                .getChannel()
-                                .sendMessage(EmbedHelper
-                                        .genericSuccessEmbed("**<@" + messageCreateEvent.getMessageAuthor().getId() + ">** successfully dropped the match " + matchId + " as a **Referee**", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
-                        return;
+                // Check if there is at least one referees in the list
+                if (splitReferees.size() >= 1) {
+                    for (int j = 0; j < splitReferees.size(); j++) {
+                        splitReferees.set(j, splitReferees.get(j).trim());
+                    }
+
+                    for (String splitReferee : splitReferees) {
+                        if (splitReferee.equals(messageCreateEvent.getMessageAuthor().getDisplayName())) {
+                            refereeFound = true;
+                        }
                     }
                 }
             }
 
-            // There was no match with the given match id
+            // Referee was not found, can't drop
+            if (!refereeFound) {
+                messageCreateEvent
+                        .getChannel()
+                        .sendMessage(EmbedHelper.genericErrorEmbed("You are not listed as a **Referee** on this match.", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
+                return;
+            }
+
+            splitReferees.remove(messageCreateEvent.getMessageAuthor().getDisplayName());
+            newReferees.append(String.join(" / ", splitReferees));
+
+            String referees = newReferees.toString();
+
+            spreadsheetGateway.updateDataOnSheet(spreadsheetId, existingTournament.getScheduleTab(), TournamentHelper.getRangeFromRow(existingTournament.getRefereeRow(), sheetMatchRow.getRowIndex()), referees);
+
+            tournamentSynchronizer.applyMatchChange(existingTournament, sheetMatchRow, row -> row.setReferee(referees));
+
             messageCreateEvent
                     .getChannel()
-                    .sendMessage(EmbedHelper.genericErrorEmbed("There seems to be no match with the id `" + commandParamMatchId.getValue() + "`", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
+                    .sendMessage(EmbedHelper
+                            .genericSuccessEmbed("**<@" + messageCreateEvent.getMessageAuthor().getId() + ">** successfully dropped the match " + matchId + " as a **Referee**", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
         } catch (Exception ex) {
             messageCreateEvent
                     .getChannel()
                     .sendMessage(EmbedHelper.genericErrorEmbed(GoogleSpreadsheetAuthenticator.parseException(ex), messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
+        } finally {
+            matchLock.unlock();
         }
     }
 }
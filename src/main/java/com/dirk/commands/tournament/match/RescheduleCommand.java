@@ -24,17 +24,24 @@
 
 package com.dirk.commands.tournament.match;
 
+import com.dirk.helper.DateFormats;
 import com.dirk.helper.EmbedHelper;
 import com.dirk.helper.Emoji;
+import com.dirk.helper.Log;
 import com.dirk.helper.TournamentHelper;
+import com.dirk.meta.MatchRowReader;
+import com.dirk.meta.PendingRequestIndex;
 import com.dirk.models.GoogleSpreadsheetAuthenticator;
 import com.dirk.models.command.Command;
 import com.dirk.models.command.CommandArgument;
 import com.dirk.models.command.CommandArgumentType;
 import com.dirk.models.command.CommandParameter;
+import com.dirk.models.tournament.RescheduleRequest;
+import com.dirk.models.tournament.SheetMatchRow;
 import com.dirk.models.tournament.Team;
 import com.dirk.models.tournament.Tournament;
 import com.dirk.repositories.TournamentRepository;
+import org.javacord.api.entity.DiscordEntity;
 import org.javacord.api.entity.message.Message;
 import org.javacord.api.entity.permission.Role;
 import org.javacord.api.entity.server.Server;
@@ -44,19 +51,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.transaction.Transactional;
-import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Date;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 @Component
 public class RescheduleCommand extends Command {
     private final TournamentRepository tournamentRepository;
+    private final MatchRowReader matchRowReader;
+    private final PendingRequestIndex pendingRequestIndex;
 
     @Autowired
-    public RescheduleCommand(TournamentRepository tournamentRepository) {
+    public RescheduleCommand(TournamentRepository tournamentRepository, MatchRowReader matchRowReader, PendingRequestIndex pendingRequestIndex) {
         this.commandName = "reschedule";
         this.description = "Reschedule a match";
         this.group = "Tournament management";
@@ -70,6 +78,8 @@ public class RescheduleCommand extends Command {
         this.commandArguments.add(new CommandArgument("time", "The time of when the new match is supposed to happen (in UTC+0)", CommandArgumentType.SingleString));
 
         this.tournamentRepository = tournamentRepository;
+        this.matchRowReader = matchRowReader;
+        this.pendingRequestIndex = pendingRequestIndex;
     }
 
     @Override
@@ -103,11 +113,10 @@ public class RescheduleCommand extends Command {
         String userDateString = userDay + "-" + userMonth + "-" + Calendar.getInstance().get(Calendar.YEAR) + " " + userTime;
 
         try {
-            Date date;
+            LocalDateTime date;
 
             try {
-                SimpleDateFormat format = new SimpleDateFormat("d-MMMM-y H:m");
-                date = format.parse(userDateString);
+                date = LocalDateTime.parse(userDateString, DateFormats.RESCHEDULE_INPUT);
             } catch (Exception ex) {
                 messageCreateEvent
                         .getChannel()
@@ -117,168 +126,148 @@ public class RescheduleCommand extends Command {
                 return;
             }
 
-            String spreadsheetId = TournamentHelper.getSpreadsheetIdFromUrl(existingTournament.getSpreadsheet());
-            GoogleSpreadsheetAuthenticator authenticator = new GoogleSpreadsheetAuthenticator(spreadsheetId);
-
-            List<List<Object>> allMatchIds = authenticator.getDataFromRange(existingTournament.getScheduleTab(), existingTournament.getMatchIdRow());
-
-            // Loop through all matches
-            for (int i = 0; i < allMatchIds.size(); i++) {
-                List<Object> currentMatch = allMatchIds.get(i);
-                String matchId = (String) currentMatch.stream().findFirst().orElse(null);
-
-                // Check if the match exists, should always be true
-                if (matchId != null) {
-                    // The entered match exists
-                    if (matchId.equals(userMatchId)) {
-                        List<List<Object>> listedPlayerOne = authenticator.getDataFromRange(existingTournament.getScheduleTab(), TournamentHelper.getRangeFromRow(existingTournament.getPlayerOneRow(), i));
-                        List<List<Object>> listedPlayerTwo = authenticator.getDataFromRange(existingTournament.getScheduleTab(), TournamentHelper.getRangeFromRow(existingTournament.getPlayerTwoRow(), i));
-
-                        String playerOne = (String) listedPlayerOne.get(0).stream().findFirst().orElse(null);
-                        String playerTwo = (String) listedPlayerTwo.get(0).stream().findFirst().orElse(null);
-
-                        assert playerOne != null;
-                        assert playerTwo != null;
-
-                        // The current tournament is a team tournament
-                        if (existingTournament.getIsTeamTournament()) {
-                            List<Team> allTeams = existingTournament.getAllTeams();
-
-                            boolean teamCaptainFound = false;
-
-                            for (Team team : allTeams) {
-                                if (team.getCaptain().equals(messageCreateEvent.getMessageAuthor().getDisplayName())) {
-                                    teamCaptainFound = true;
-                                }
-                            }
-
-                            if (!teamCaptainFound) {
-                                messageCreateEvent
-                                        .getChannel()
-                                        .sendMessage(EmbedHelper.genericErrorEmbed("You are not the team captain of either team.\n\n" +
-                                                "**Is this incorrect? Ping any of the tournament hosts!**", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
-                                return;
-                            }
-                        }
-                        // The current tournament is a player vs player tournament
-                        else {
-                            // Check if the user is either player one or two
-                            if (!List.of(playerOne, playerTwo).contains(messageCreateEvent.getMessageAuthor().getDisplayName())) {
-                                messageCreateEvent
-                                        .getChannel()
-                                        .sendMessage(EmbedHelper.genericErrorEmbed("You are not part of this match. \n\n" +
-                                                "**Is this incorrect? Ping any of the tournament hosts!**", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
-                                return;
-                            }
-                        }
-
-                        SimpleDateFormat format = new SimpleDateFormat("d MMMM H:mm");
-
-                        Server server = messageCreateEvent.getServer().get();
-
-                        Object userOne;
-                        Object userTwo;
-
-                        // Change userOne/Two to either a Role or User depending on solo or team tournament
-                        if (existingTournament.getIsTeamTournament()) {
-                            userOne = server.getRolesByName(playerOne).stream().findFirst().orElse(null);
-                            userTwo = server.getRolesByName(playerTwo).stream().findFirst().orElse(null);
-                        } else {
-                            userOne = server.getMembersByName(playerOne).stream().findFirst().orElse(null);
-                            userTwo = server.getMembersByName(playerTwo).stream().findFirst().orElse(null);
-                        }
-
-                        // Check if the users exist in the Discord
-                        if (userOne == null || userTwo == null) {
-                            List<String> usersNotFound = new ArrayList<>();
-
-                            if (userOne == null) {
-                                usersNotFound.add("**" + playerOne + "**");
-                            }
-
-                            if (userTwo == null) {
-                                usersNotFound.add("**" + playerTwo + "**");
-                            }
-
-                            messageCreateEvent
-                                    .getChannel()
-                                    .sendMessage(EmbedHelper.genericErrorEmbed("Unable to find the user(s): " + String.join("/", usersNotFound) + " in the Discord.\n\n" +
-                                            "**Is this incorrect? Ping any of the tournament hosts!**", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
-                            return;
-                        }
-
-                        List<List<Object>> listedDate = authenticator.getDataFromRange(existingTournament.getScheduleTab(), TournamentHelper.getRangeFromRow(existingTournament.getDateRow(), i));
-                        List<List<Object>> listedTime = authenticator.getDataFromRange(existingTournament.getScheduleTab(), TournamentHelper.getRangeFromRow(existingTournament.getTimeRow(), i));
-
-                        String spreadsheetDate = (String) listedDate.get(0).stream().findFirst().orElse(null);
-                        String spreadsheetTime = (String) listedTime.get(0).stream().findFirst().orElse(null);
-
-                        Date originalDate;
-                        String originalDateString = spreadsheetDate + "/" + Calendar.getInstance().get(Calendar.YEAR) + " " + spreadsheetTime;
-
-                        try {
-                            String dateFormat = existingTournament
-                                    .getDateFormat()
-                                    .replace("%d", "dd")
-                                    .replace("%m", "MM")
-                                    .replace("-", "/")
-                                    + "/yyyy H:m";
-
-                            SimpleDateFormat tmpFormat = new SimpleDateFormat(dateFormat);
-                            originalDate = tmpFormat.parse(originalDateString);
-                        } catch (Exception ex) {
-                            messageCreateEvent
-                                    .getChannel()
-                                    .sendMessage(EmbedHelper.genericErrorEmbed("Invalid date and/or time given.", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
-
-                            ex.printStackTrace();
-                            return;
-                        }
-
-                        String userOnePing = (userOne instanceof User) ? "<@" + ((User) userOne).getId() + ">" : "<@&" + ((Role) userOne).getId() + ">";
-                        String userTwoPing = (userTwo instanceof User) ? "<@" + ((User) userTwo).getId() + ">" : "<@&" + ((Role) userTwo).getId() + ">";
-
-                        String message;
-
-                        if (existingTournament.getIsTeamTournament()) {
-                            String teamOneCaptain = "";
-
-                            for (Team team : existingTournament.getAllTeams()) {
-                                if (team.getTeamId().getName().equals(((Role) userOne).getName())) {
-                                    teamOneCaptain = team.getCaptain();
-                                }
-                            }
-
-                            message = String.format("Hello %s! %s would like to reschedule **match %s** from **%s UTC+0** to **%s UTC+0**. If you would like to accept this reschedule, react to this message with a " + Emoji.THUMBS_UP + ". ",
-                                    (messageCreateEvent.getMessageAuthor().getDisplayName().equals(teamOneCaptain) ? userTwoPing : userOnePing),
-                                    (messageCreateEvent.getMessageAuthor().getDisplayName().equals(teamOneCaptain) ? userOnePing : userTwoPing),
-                                    userMatchId,
-                                    format.format(originalDate),
-                                    format.format(date));
-                        } else {
-                            message = String.format("Hello %s! %s would like to reschedule **match %s** from **%s UTC+0** to **%s UTC+0**. If you would like to accept this reschedule, react to this message with a " + Emoji.THUMBS_UP + ". ",
-                                    (messageCreateEvent.getMessageAuthor().getDisplayName().equals(playerOne) ? userTwoPing : userOnePing),
-                                    (messageCreateEvent.getMessageAuthor().getDisplayName().equals(playerOne) ? userOnePing : userTwoPing),
-                                    userMatchId,
-                                    format.format(originalDate),
-                                    format.format(date));
-                        }
-
-                        CompletableFuture<Message> sentMessage = messageCreateEvent
-                                .getChannel()
-                                .sendMessage(message);
-
-                        sentMessage.whenComplete((msg, throwable) -> msg.addReaction(Emoji.THUMBS_UP));
-
-                        return;
+            SheetMatchRow sheetMatchRow = matchRowReader.readMatchRow(existingTournament, userMatchId);
+
+            // There was no match with the given match id
+            if (sheetMatchRow == null) {
+                messageCreateEvent
+                        .getChannel()
+                        .sendMessage(EmbedHelper.genericErrorEmbed("There seems to be no match with the id `" + userMatchId + "`", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
+                return;
+            }
+
+            String playerOne = sheetMatchRow.getPlayerOne();
+            String playerTwo = sheetMatchRow.getPlayerTwo();
+
+            assert playerOne != null;
+            assert playerTwo != null;
+
+            // The current tournament is a team tournament
+            if (existingTournament.getIsTeamTournament()) {
+                List<Team> allTeams = existingTournament.getAllTeams();
+
+                boolean teamCaptainFound = false;
+
+                for (Team team : allTeams) {
+                    if (team.getCaptain().equals(messageCreateEvent.getMessageAuthor().getDisplayName())) {
+                        teamCaptainFound = true;
                     }
                 }
+
+                if (!teamCaptainFound) {
+                    messageCreateEvent
+                            .getChannel()
+                            .sendMessage(EmbedHelper.genericErrorEmbed("You are not the team captain of either team.\n\n" +
+                                    "**Is this incorrect? Ping any of the tournament hosts!**", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
+                    return;
+                }
+            }
+            // The current tournament is a player vs player tournament
+            else {
+                // Check if the user is either player one or two
+                if (!List.of(playerOne, playerTwo).contains(messageCreateEvent.getMessageAuthor().getDisplayName())) {
+                    messageCreateEvent
+                            .getChannel()
+                            .sendMessage(EmbedHelper.genericErrorEmbed("You are not part of this match. \n\n" +
+                                    "**Is this incorrect? Ping any of the tournament hosts!**", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
+                    return;
+                }
             }
 
-            // There was no match with the given match id
-            messageCreateEvent
+            Server server = messageCreateEvent.getServer().get();
+
+            Object userOne;
+            Object userTwo;
+
+            // Change userOne/Two to either a Role or User depending on solo or team tournament
+            if (existingTournament.getIsTeamTournament()) {
+                userOne = server.getRolesByName(playerOne).stream().findFirst().orElse(null);
+                userTwo = server.getRolesByName(playerTwo).stream().findFirst().orElse(null);
+            } else {
+                userOne = server.getMembersByName(playerOne).stream().findFirst().orElse(null);
+                userTwo = server.getMembersByName(playerTwo).stream().findFirst().orElse(null);
+            }
+
+            // Check if the users exist in the Discord
+            if (userOne == null || userTwo == null) {
+                List<String> usersNotFound = new ArrayList<>();
+
+                if (userOne == null) {
+                    usersNotFound.add("**" + playerOne + "**");
+                }
+
+                if (userTwo == null) {
+                    usersNotFound.add("**" + playerTwo + "**");
+                }
+
+                messageCreateEvent
+                        .getChannel()
+                        .sendMessage(EmbedHelper.genericErrorEmbed("Unable to find the user(s): " + String.join("/", usersNotFound) + " in the Discord.\n\n" +
+                                "**Is this incorrect? Ping any of the tournament hosts!**", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
+                return;
+            }
+
+            String spreadsheetDate = sheetMatchRow.getDate();
+            String spreadsheetTime = sheetMatchRow.getTime();
+
+            LocalDateTime originalDate;
+            String originalDateString = spreadsheetDate + "/" + Calendar.getInstance().get(Calendar.YEAR) + " " + spreadsheetTime;
+
+            try {
+                originalDate = LocalDateTime.parse(originalDateString, DateFormats.getSheetDateYearTimeFormatter(existingTournament.getDateFormat()));
+            } catch (Exception ex) {
+                messageCreateEvent
+                        .getChannel()
+                        .sendMessage(EmbedHelper.genericErrorEmbed("Invalid date and/or time given.", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
+
+                ex.printStackTrace();
+                return;
+            }
+
+            String userOnePing = (userOne instanceof User) ? "<@" + ((User) userOne).getId() + ">" : "<@&" + ((Role) userOne).getId() + ">";
+            String userTwoPing = (userTwo instanceof User) ? "<@" + ((User) userTwo).getId() + ">" : "<@&" + ((Role) userTwo).getId() + ">";
+
+            boolean requestedByUserOne;
+
+            if (existingTournament.getIsTeamTournament()) {
+                String teamOneCaptain = "";
+
+                for (Team team : existingTournament.getAllTeams()) {
+                    if (team.getTeamId().getName().equals(((Role) userOne).getName())) {
+                        teamOneCaptain = team.getCaptain();
+                    }
+                }
+
+                requestedByUserOne = messageCreateEvent.getMessageAuthor().getDisplayName().equals(teamOneCaptain);
+            } else {
+                requestedByUserOne = messageCreateEvent.getMessageAuthor().getDisplayName().equals(playerOne);
+            }
+
+            String message = String.format("Hello %s! %s would like to reschedule **match %s** from **%s UTC+0** to **%s UTC+0**. If you would like to accept this reschedule, react to this message with a " + Emoji.THUMBS_UP + ". ",
+                    (requestedByUserOne ? userTwoPing : userOnePing),
+                    (requestedByUserOne ? userOnePing : userTwoPing),
+                    userMatchId,
+                    DateFormats.RESCHEDULE_MESSAGE.format(originalDate),
+                    DateFormats.RESCHEDULE_MESSAGE.format(date));
+
+            RescheduleRequest rescheduleRequest = new RescheduleRequest(null, userMatchId, ((DiscordEntity) (requestedByUserOne ? userTwo : userOne)).getId(), DateFormats.toDate(originalDate), DateFormats.toDate(date));
+
+            CompletableFuture<Message> sentMessage = messageCreateEvent
                     .getChannel()
-                    .sendMessage(EmbedHelper.genericErrorEmbed("There seems to be no match with the id `" + userMatchId + "`", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
+                    .sendMessage(message);
+
+            sentMessage.whenComplete((msg, throwable) -> {
+                if (throwable != null) {
+                    Log.error("Unable to send the reschedule request of match " + userMatchId + ": " + throwable.getMessage());
+                    return;
+                }
+
+                // Store the request before the opponent is able to accept it
+                rescheduleRequest.setMessageSnowflake(msg.getId());
+                pendingRequestIndex.addRescheduleRequest(rescheduleRequest);
+
+                msg.addReaction(Emoji.THUMBS_UP);
+            });
         } catch (Exception ex) {
             messageCreateEvent
                     .getChannel()
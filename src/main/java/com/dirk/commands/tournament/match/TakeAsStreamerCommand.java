@@ -26,11 +26,16 @@ package com.dirk.commands.tournament.match;
 
 import com.dirk.helper.EmbedHelper;
 import com.dirk.helper.TournamentHelper;
+import com.dirk.meta.MatchLocks;
+import com.dirk.meta.MatchRowReader;
+import com.dirk.meta.TournamentSynchronizer;
 import com.dirk.models.GoogleSpreadsheetAuthenticator;
+import com.dirk.models.SpreadsheetGateway;
 import com.dirk.models.command.Command;
 import com.dirk.models.command.CommandArgument;
 import com.dirk.models.command.CommandArgumentType;
 import com.dirk.models.command.CommandParameter;
+import com.dirk.models.tournament.SheetMatchRow;
 import com.dirk.models.tournament.Tournament;
 import com.dirk.repositories.TournamentRepository;
 import org.javacord.api.event.message.MessageCreateEvent;
@@ -41,13 +46,18 @@ import javax.transaction.Transactional;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
 
 @Component
 public class TakeAsStreamerCommand extends Command {
     private final TournamentRepository tournamentRepository;
+    private final SpreadsheetGateway spreadsheetGateway;
+    private final TournamentSynchronizer tournamentSynchronizer;
+    private final MatchRowReader matchRowReader;
+    private final MatchLocks matchLocks;
 
     @Autowired
-    public TakeAsStreamerCommand(TournamentRepository tournamentRepository) {
+    public TakeAsStreamerCommand(TournamentRepository tournamentRepository, SpreadsheetGateway spreadsheetGateway, TournamentSynchronizer tournamentSynchronizer, MatchRowReader matchRowReader, MatchLocks matchLocks) {
         this.commandName = "takeasstreamer";
         this.description = "Take a match as a streamer";
         this.group = "Tournament management";
@@ -58,6 +68,10 @@ public class TakeAsStreamerCommand extends Command {
         this.commandArguments.add(new CommandArgument("match id", "The id of the match to take", CommandArgumentType.String));
 
         this.tournamentRepository = tournamentRepository;
+        this.spreadsheetGateway = spreadsheetGateway;
+        this.tournamentSynchronizer = tournamentSynchronizer;
+        this.matchRowReader = matchRowReader;
+        this.matchLocks = matchLocks;
     }
 
     @Override
@@ -103,77 +117,75 @@ public class TakeAsStreamerCommand extends Command {
             return;
         }
 
+        String spreadsheetId = TournamentHelper.getSpreadsheetIdFromUrl(existingTournament.getSpreadsheet());
+        String matchId = (String) commandParamMatchId.getValue();
+
+        // Read and write the staff of the match while holding its lock, so a concurrent take or drop can't overwrite this one
+        Lock matchLock = matchLocks.getLock(spreadsheetId, matchId);
+        matchLock.lock();
+
         try {
-            String spreadsheetId = TournamentHelper.getSpreadsheetIdFromUrl(existingTournament.getSpreadsheet());
-            GoogleSpreadsheetAuthenticator authenticator = new GoogleSpreadsheetAuthenticator(spreadsheetId);
-
-            List<List<Object>> allMatchIds = authenticator.getDataFromRange(existingTournament.getScheduleTab(), existingTournament.getMatchIdRow());
-
-            // Loop through all matches
-            for (int i = 0; i < allMatchIds.size(); i++) {
-                List<Object> currentMatch = allMatchIds.get(i);
-                String matchId = (String) currentMatch.stream().findFirst().orElse(null);
-
-                // Check if the match exists, should always be true
-                if (matchId != null) {
-                    // The entered match exists
-                    if (matchId.equals(commandParamMatchId.getValue())) {
-                        // Get the listed streamers from the spreadsheet
-                        String listedStreamers = TournamentHelper.getSheetRowAsString(authenticator, existingTournament.getScheduleTab(), TournamentHelper.getRangeFromRow(existingTournament.getStreamerRow(), i));
-
-                        StringBuilder newStreamers = new StringBuilder();
-
-                        // Check if there is already a streamer
-                        if (listedStreamers != null) {
-                            List<String> splitStreamers = new ArrayList<>(Arrays.asList(listedStreamers.split("/")));
-
-                            // Check if there is at least one streamer in the list
-                            if (splitStreamers.size() >= 1) {
-                                for (int j = 0; j < splitStreamers.size(); j++) {
-                                    splitStreamers.set(j, splitStreamers.get(j).trim());
-                                }
-
-                                for (String splitStreamer : splitStreamers) {
-                                    if (splitStreamer.equals(messageCreateEvent.getMessageAuthor().getDisplayName())) {
-                                        messageCreateEvent
-                                                .getChannel()
-                                                .sendMessage(EmbedHelper.genericErrorEmbed("You are already listed as a streamer for this match.", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
-                                        return;
-                                    }
-                                }
-
-                                splitStreamers.add(messageCreateEvent.getMessageAuthor().getDisplayName());
-                                newStreamers.append(String.join(" / ", splitStreamers));
-                            } else {
-                                newStreamers.append(messageCreateEvent.getMessageAuthor().getDisplayName());
-                            }
-                        }
-                        // There is no streamer yet, add it right away
-                        else {
-                            newStreamers = new StringBuilder(messageCreateEvent.getMessageAuthor().getDisplayName());
-                        }
+            SheetMatchRow sheetMatchRow = matchRowReader.readMatchRow(existingTournament, matchId);
 
-                        authenticator.updateDataOnSheet(existingTournament.getScheduleTab(), TournamentHelper.getRangeFromRow(existingTournament.getStreamerRow(), i), newStreamers.toString());
+            // There was no match with the given match id
+            if (sheetMatchRow == null) {
+                messageCreateEvent
+                        .getChannel()
+                        .sendMessage(EmbedHelper.genericErrorEmbed("There seems to be no match with the id `" + matchId + "`", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
+                return;
+            }
+
+            // Get the listed streamers from the spreadsheet
+            String listedStreamers = sheetMatchRow.getStreamer();
 
-                        TournamentHelper.synchronizeSpreadsheet(tournamentRepository, existingTournament);
+            StringBuilder newStreamers = new StringBuilder();
 
-                        messageCreateEvent
-                                .getChannel()
-                                .sendMessage(EmbedHelper
-                                        .genericSuccessEmbed("**<@" + messageCreateEvent.getMessageAuthor().getId() + ">** successfully took the match " + matchId + " as a **Streamer**", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
-                        return;
+            // Check if there is already a streamer
+            if (listedStreamers != null) {
+                List<String> splitStreamers = new ArrayList<>(Arrays.asList(listedStreamers.split("/")));
+
+                // Check if there is at least one streamer in the list
+                if (splitStreamers.size() >= 1) {
+                    for (int j = 0; j < splitStreamers.size(); j++) {
+                        splitStreamers.set(j, splitStreamers.get(j).trim());
                     }
+
+                    for (String splitStreamer : splitStreamers) {
+                        if (splitStreamer.equals(messageCreateEvent.getMessageAuthor().getDisplayName())) {
+                            messageCreateEvent
+                                    .getChannel()
+                                    .sendMessage(EmbedHelper.genericErrorEmbed("You are already listed as a streamer for this match.", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
+                            return;
+                        }
+                    }
+
+                    splitStreamers.add(messageCreateEvent.getMessageAuthor().getDisplayName());
+                    newStreamers.append(String.join(" / ", splitStreamers));
+                } else {
+                    newStreamers.append(messageCreateEvent.getMessageAuthor().getDisplayName());
                 }
             }
+            // There is no streamer yet, add it right away
+            else {
+                newStreamers = new StringBuilder(messageCreateEvent.getMessageAuthor().getDisplayName());
+            }
+
+            String streamers = newStreamers.toString();
+
+            spreadsheetGateway.updateDataOnSheet(spreadsheetId, existingTournament.getScheduleTab(), TournamentHelper.getRangeFromRow(existingTournament.getStreamerRow(), sheetMatchRow.getRowIndex()), streamers);
+
+            tournamentSynchronizer.applyMatchChange(existingTournament, sheetMatchRow, row -> row.setStreamer(streamers));
 
-            // There was no match with the given match id
             messageCreateEvent
                     .getChannel()
-                    .sendMessage(EmbedHelper.genericErrorEmbed("There seems to be no match with the id `" + commandParamMatchId.getValue() + "`", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
+                    .sendMessage(EmbedHelper
+                            .genericSuccessEmbed("**<@" + messageCreateEvent.getMessageAuthor().getId() + ">** successfully took the match " + matchId + " as a **Streamer**", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
         } catch (Exception ex) {
             messageCreateEvent
                     .getChannel()
                     .sendMessage(EmbedHelper.genericErrorEmbed(GoogleSpreadsheetAuthenticator.parseException(ex), messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
+        } finally {
+            matchLock.unlock();
         }
     }
 }
@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.helper;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * All date formats of the bot. Unlike SimpleDateFormat these are thread-safe, so they are created once and shared.
+ * Month names are parsed case-insensitive and a date without a year is parsed as a leap year, so that the 29th of
+ * February can be read from the spreadsheet. Days and months are read with or without a leading zero, just like
+ * SimpleDateFormat did, but are always written with one.
+ */
+public class DateFormats {
+    private static final int DEFAULT_YEAR = 2000;
+    private static final Map<String, DateTimeFormatter> formattersPerPattern = new ConcurrentHashMap<>();
+
+    public static final DateTimeFormatter COMMAND_DATE = ofPattern("d/M/uuuu");
+    public static final DateTimeFormatter BIRTHDAY = ofPattern("dd MMMM, uuuu");
+    public static final DateTimeFormatter RESCHEDULE_INPUT = ofPattern("d-MMMM-uuuu H:m");
+    public static final DateTimeFormatter RESCHEDULE_MESSAGE = ofPattern("d MMMM H:mm");
+    public static final DateTimeFormatter SHEET_TIME = ofPattern("H:mm");
+
+    /**
+     * Get the formatter for the given pattern, every pattern is only built once
+     *
+     * @param pattern the pattern of the formatter
+     * @return the formatter
+     */
+    public static DateTimeFormatter ofPattern(String pattern) {
+        return formattersPerPattern.computeIfAbsent(pattern, key -> new DateTimeFormatterBuilder()
+                .parseCaseInsensitive()
+                .appendPattern(key)
+                .parseDefaulting(ChronoField.YEAR, DEFAULT_YEAR)
+                .toFormatter(Locale.ENGLISH));
+    }
+
+    /**
+     * Get the formatter to write a date in the format of the spreadsheet of the tournament
+     *
+     * @param tournamentDateFormat the date format of the tournament (ie. %d/%m)
+     * @return the formatter
+     */
+    public static DateTimeFormatter getSheetDateFormatter(String tournamentDateFormat) {
+        return ofPattern(getSheetDatePattern(tournamentDateFormat, "dd", "MM"));
+    }
+
+    /**
+     * Get the formatter to read the date and time of the spreadsheet of the tournament
+     *
+     * @param tournamentDateFormat the date format of the tournament (ie. %d/%m)
+     * @return the formatter
+     */
+    public static DateTimeFormatter getSheetDateTimeFormatter(String tournamentDateFormat) {
+        return ofPattern(getSheetDatePattern(tournamentDateFormat, "d", "M") + " H:m");
+    }
+
+    /**
+     * Get the formatter to read the date and time of the spreadsheet of the tournament with the year appended to the date
+     *
+     * @param tournamentDateFormat the date format of the tournament (ie. %d/%m)
+     * @return the formatter
+     */
+    public static DateTimeFormatter getSheetDateYearTimeFormatter(String tournamentDateFormat) {
+        return ofPattern(getSheetDatePattern(tournamentDateFormat, "d", "M").replace("-", "/") + "/uuuu H:m");
+    }
+
+    /**
+     * Convert the date and time to a date in the timezone of the system
+     *
+     * @param dateTime the date and time to convert
+     * @return the date
+     */
+    public static Date toDate(LocalDateTime dateTime) {
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Convert the date to the start of the day in the timezone of the system
+     *
+     * @param date the date to convert
+     * @return the date
+     */
+    public static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Convert the date to a date and time in the timezone of the system
+     *
+     * @param date the date to convert
+     * @return the date and time
+     */
+    public static LocalDateTime toLocalDateTime(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+
+    /**
+     * Convert the date format of the tournament to a pattern
+     *
+     * @param tournamentDateFormat the date format of the tournament (ie. %d/%m)
+     * @param dayPattern           the pattern to use for the day
+     * @param monthPattern         the pattern to use for the month
+     * @return the pattern (ie. dd/MM)
+     */
+    private static String getSheetDatePattern(String tournamentDateFormat, String dayPattern, String monthPattern) {
+        return tournamentDateFormat
+                .replace("%d", dayPattern)
+                .replace("%m", monthPattern);
+    }
+}
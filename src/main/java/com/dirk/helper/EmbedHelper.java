@@ -28,8 +28,13 @@ import org.javacord.api.entity.message.embed.EmbedBuilder;
 import org.javacord.api.entity.user.User;
 
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
 
 public class EmbedHelper {
+    // Discord doesn't allow embed descriptions longer than this
+    private static final int MAX_DESCRIPTION_LENGTH = 4096;
+
     public static EmbedBuilder genericSuccessEmbed(String message, String author) {
         return new EmbedBuilder().setTimestampToNow().setColor(Color.GREEN).setAuthor("✅ Nicely done, " + author + "!").setDescription(message);
     }
@@ -46,6 +51,46 @@ public class EmbedHelper {
         return new EmbedBuilder().setTimestampToNow().setFooter("User joined").setColor(Color.GREEN).setAuthor(parsedMessage, "", joinUser.getAvatar().getUrl().toString());
     }
 
+    public static List<EmbedBuilder> peopleJoinedServer(String message, List<User> joinUsers) {
+        List<EmbedBuilder> embeds = new ArrayList<>();
+        StringBuilder description = new StringBuilder();
+        int usersInEmbed = 0;
+
+        for (User joinUser : joinUsers) {
+            String parsedMessage = message
+                    .replace("{{tag}}", joinUser.getDiscriminatedName())
+                    .replace("{{userid}}", joinUser.getIdAsString());
+
+            if (parsedMessage.length() > MAX_DESCRIPTION_LENGTH) {
+                parsedMessage = parsedMessage.substring(0, MAX_DESCRIPTION_LENGTH);
+            }
+
+            // Start a new embed when the message doesn't fit in the description anymore
+            if (usersInEmbed > 0 && description.length() + 1 + parsedMessage.length() > MAX_DESCRIPTION_LENGTH) {
+                embeds.add(peopleJoinedEmbed(description.toString(), usersInEmbed));
+                description.setLength(0);
+                usersInEmbed = 0;
+            }
+
+            if (usersInEmbed > 0) {
+                description.append("\n");
+            }
+
+            description.append(parsedMessage);
+            usersInEmbed++;
+        }
+
+        if (usersInEmbed > 0) {
+            embeds.add(peopleJoinedEmbed(description.toString(), usersInEmbed));
+        }
+
+        return embeds;
+    }
+
+    private static EmbedBuilder peopleJoinedEmbed(String description, int userCount) {
+        return new EmbedBuilder().setTimestampToNow().setFooter(userCount + " users joined").setColor(Color.GREEN).setDescription(description);
+    }
+
     public static EmbedBuilder personLeaveServer(String message, User joinUser) {
         String parsedMessage = message
                 .replace("{{tag}}", joinUser.getDiscriminatedName())
@@ -0,0 +1,38 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.helper;
+
+import java.util.regex.Pattern;
+
+/**
+ * All regular expressions of the bot, compiled once so they can be reused for every message
+ */
+public class Patterns {
+    public static final Pattern ROLE_MENTION = Pattern.compile("<@&([0-9]+)>");
+    public static final Pattern USER_MENTION_START = Pattern.compile("(?=<@[0-9!]+>)");
+    public static final Pattern SPREADSHEET_ROW = Pattern.compile("([A-Za-z0-9]{1,3}):([A-Za-z0-9]{1,3})");
+    public static final Pattern DATE_FORMAT = Pattern.compile("[%dm][/-][%dm]");
+    public static final Pattern SPREADSHEET_URL = Pattern.compile("https://docs.google.com/spreadsheets/d/([A-Za-z0-9-_]+)");
+}
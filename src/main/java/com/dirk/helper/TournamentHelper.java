@@ -24,12 +24,11 @@
 
 package com.dirk.helper;
 
-import com.dirk.models.GoogleSpreadsheetAuthenticator;
-import com.dirk.models.tournament.Match;
-import com.dirk.models.tournament.Team;
+import com.dirk.meta.MemberNameIndex;
+import com.dirk.models.SpreadsheetGateway;
+import com.dirk.models.tournament.SheetMatchRow;
+import com.dirk.models.tournament.SheetSchedule;
 import com.dirk.models.tournament.Tournament;
-import com.dirk.models.tournament.embeddable.MatchId;
-import com.dirk.models.tournament.embeddable.TeamId;
 import com.dirk.repositories.TournamentRepository;
 import org.javacord.api.entity.message.Message;
 import org.javacord.api.entity.permission.Role;
@@ -39,12 +38,8 @@ import org.javacord.api.event.message.CertainMessageEvent;
 import org.javacord.api.event.message.MessageCreateEvent;
 
 import java.io.IOException;
-import java.security.GeneralSecurityException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class TournamentHelper {
     /**
@@ -79,8 +74,7 @@ public class TournamentHelper {
      * @return A role or null
      */
     public static Role getRoleByString(String role, Server server) {
-        Pattern rolePattern = Pattern.compile("<@&([0-9]+)>");
-        Matcher matcher = rolePattern.matcher(role);
+        Matcher matcher = Patterns.ROLE_MENTION.matcher(role);
 
         Optional<Role> foundRole;
 
@@ -102,8 +96,7 @@ public class TournamentHelper {
      * @return result of whether or not the row is correct
      */
     public static Boolean validateSpreadsheetRowInput(String row) {
-        Pattern rowPattern = Pattern.compile("[A-Za-z0-9]{1,3}:[A-Za-z0-9]{1,3}");
-        Matcher matcher = rowPattern.matcher(row);
+        Matcher matcher = Patterns.SPREADSHEET_ROW.matcher(row);
 
         return matcher.find();
     }
@@ -115,8 +108,7 @@ public class TournamentHelper {
      * @return result of whether or not the rows are correct
      */
     public static Boolean validateSpreadsheetTeamRow(String row) {
-        Pattern rowPattern = Pattern.compile("([A-Za-z0-9]{1,3}):([A-Za-z0-9]{1,3})");
-        Matcher matcher = rowPattern.matcher(row);
+        Matcher matcher = Patterns.SPREADSHEET_ROW.matcher(row);
 
         if (matcher.find()) {
             String firstRow = String.valueOf(matcher.group(1).charAt(0));
@@ -135,8 +127,7 @@ public class TournamentHelper {
      * @return result of whether or not the date format is correct
      */
     public static Boolean validateDateFormat(String dateFormat) {
-        Pattern dateFormatPattern = Pattern.compile("[%dm][/-][%dm]");
-        Matcher matcher = dateFormatPattern.matcher(dateFormat);
+        Matcher matcher = Patterns.DATE_FORMAT.matcher(dateFormat);
 
         return matcher.find();
     }
@@ -148,8 +139,7 @@ public class TournamentHelper {
      * @return result of whether or not the spreadsheet format is correct
      */
     public static Boolean validateSpreadsheetUrl(String spreadsheetUrl) {
-        Pattern spreadsheetPattern = Pattern.compile("https://docs.google.com/spreadsheets/d/[A-Za-z0-9-_]+");
-        Matcher matcher = spreadsheetPattern.matcher(spreadsheetUrl);
+        Matcher matcher = Patterns.SPREADSHEET_URL.matcher(spreadsheetUrl);
 
         return matcher.find();
     }
@@ -161,8 +151,7 @@ public class TournamentHelper {
      * @return the spreadsheetId
      */
     public static String getSpreadsheetIdFromUrl(String spreadsheetUrl) {
-        Pattern spreadsheetPattern = Pattern.compile("https://docs.google.com/spreadsheets/d/([A-Za-z0-9-_]+)");
-        Matcher matcher = spreadsheetPattern.matcher(spreadsheetUrl);
+        Matcher matcher = Patterns.SPREADSHEET_URL.matcher(spreadsheetUrl);
 
         String spreadsheetId = null;
 
@@ -275,11 +264,12 @@ public class TournamentHelper {
     /**
      * Get the discord tag from all the given users
      *
-     * @param server the server to check for the users
-     * @param list   the users to get the discord tag for
+     * @param memberNameIndex the index to look the users up in
+     * @param server          the server to check for the users
+     * @param list            the users to get the discord tag for
      * @return all users with discord tags
      */
-    public static String getUsersAsDiscordHighlights(Server server, List<Object> list) {
+    public static String getUsersAsDiscordHighlights(MemberNameIndex memberNameIndex, Server server, List<Object> list) {
         String finalString = "";
         List<String> allUsersSplit;
 
@@ -290,7 +280,7 @@ public class TournamentHelper {
                 List<String> tmpAllUsers = new ArrayList<>();
 
                 for (String user : allUsersSplit) {
-                    User serverUser = server.getMembersByDisplayName(user.trim()).stream().findFirst().orElse(null);
+                    User serverUser = memberNameIndex.findMemberByDisplayName(server, user.trim());
 
                     if (serverUser != null) {
                         tmpAllUsers.add(serverUser.getMentionTag());
@@ -301,7 +291,7 @@ public class TournamentHelper {
 
                 finalString = String.join(" / ", tmpAllUsers);
             } else {
-                User serverUser = server.getMembersByDisplayName(allUsersSplit.get(0)).stream().findFirst().orElse(null);
+                User serverUser = memberNameIndex.findMemberByDisplayName(server, allUsersSplit.get(0));
 
                 if (serverUser != null) {
                     finalString = serverUser.getMentionTag();
@@ -317,12 +307,13 @@ public class TournamentHelper {
     /**
      * Get the discord tag from the given user
      *
-     * @param server the server to check for the user
-     * @param user   the user to get the discord tag for
+     * @param memberNameIndex the index to look the user up in
+     * @param server          the server to check for the user
+     * @param user            the user to get the discord tag for
      * @return the user with discord tag
      */
-    public static String getUserAsDiscordHighlight(Server server, String user) {
-        User serverUser = server.getMembersByDisplayName(user).stream().findFirst().orElse(null);
+    public static String getUserAsDiscordHighlight(MemberNameIndex memberNameIndex, Server server, String user) {
+        User serverUser = memberNameIndex.findMemberByDisplayName(server, user);
         String finalString;
 
         if (serverUser != null) {
@@ -337,12 +328,13 @@ public class TournamentHelper {
     /**
      * Get the discord tag from the given role
      *
-     * @param server   the server toc heck for the user
-     * @param roleName the role to get the discord tag for
+     * @param memberNameIndex the index to look the role up in
+     * @param server          the server toc heck for the user
+     * @param roleName        the role to get the discord tag for
      * @return the role with the discord tag
      */
-    public static String getTeamAsDiscordHighlight(Server server, String roleName) {
-        Role serverRole = server.getRolesByName(roleName).stream().findFirst().orElse(null);
+    public static String getTeamAsDiscordHighlight(MemberNameIndex memberNameIndex, Server server, String roleName) {
+        Role serverRole = memberNameIndex.findRoleByName(server, roleName);
         String finalString;
 
         if (serverRole != null) {
@@ -403,14 +395,15 @@ public class TournamentHelper {
     /**
      * Get data from the given spreadsheet as a string
      *
-     * @param authenticator the spreadsheet authenticator
-     * @param scheduleTab   the tab where the schedules are
-     * @param rowRange      the range of what to get
+     * @param spreadsheetGateway the gateway to the spreadsheet
+     * @param spreadsheetId      the spreadsheet to get the data from
+     * @param scheduleTab        the tab where the schedules are
+     * @param rowRange           the range of what to get
      * @return the data as a string
      * @throws IOException the error when something fails
      */
-    public static String getSheetRowAsString(GoogleSpreadsheetAuthenticator authenticator, String scheduleTab, String rowRange) throws IOException {
-        List<List<Object>> listedRowsFromSheetObject = authenticator.getDataFromRange(scheduleTab, rowRange);
+    public static String getSheetRowAsString(SpreadsheetGateway spreadsheetGateway, String spreadsheetId, String scheduleTab, String rowRange) throws IOException {
+        List<List<Object>> listedRowsFromSheetObject = spreadsheetGateway.getDataFromRange(spreadsheetId, scheduleTab, rowRange);
         String listedRowFromSheet = null;
 
         // Check if there are no commentators listed on the sheet
@@ -422,96 +415,72 @@ public class TournamentHelper {
     }
 
     /**
-     * Save all spreadsheet data to the database
+     * Get all matches and teams from the spreadsheet of the tournament in a single request
      *
-     * @param tournamentRepository the repository used to save the tournament
-     * @param tournament           the tournament to save as
-     * @throws IOException              the error when something fails
-     * @throws GeneralSecurityException the error when something fails
-     * @throws ParseException           the error when something fails
+     * @param spreadsheetGateway the gateway to the spreadsheet
+     * @param tournament         the tournament to get the schedule for
+     * @return the schedule of the tournament
+     * @throws IOException the error when something fails
      */
-    public static void synchronizeSpreadsheet(TournamentRepository tournamentRepository, Tournament tournament) throws IOException, GeneralSecurityException, ParseException {
+    public static SheetSchedule getSheetSchedule(SpreadsheetGateway spreadsheetGateway, Tournament tournament) throws IOException {
         String spreadsheetId = TournamentHelper.getSpreadsheetIdFromUrl(tournament.getSpreadsheet());
-        GoogleSpreadsheetAuthenticator authenticator = new GoogleSpreadsheetAuthenticator(spreadsheetId);
-
-        List<List<Object>> matchId = authenticator.getDataFromRange(tournament.getScheduleTab(), tournament.getMatchIdRow());
-        List<List<Object>> date = authenticator.getDataFromRange(tournament.getScheduleTab(), tournament.getDateRow());
-        List<List<Object>> time = authenticator.getDataFromRange(tournament.getScheduleTab(), tournament.getTimeRow());
-        List<List<Object>> playerOne = authenticator.getDataFromRange(tournament.getScheduleTab(), tournament.getPlayerOneRow());
-        List<List<Object>> playerTwo = authenticator.getDataFromRange(tournament.getScheduleTab(), tournament.getPlayerTwoRow());
-        List<List<Object>> referee = authenticator.getDataFromRange(tournament.getScheduleTab(), tournament.getRefereeRow());
-        List<List<Object>> streamer = authenticator.getDataFromRange(tournament.getScheduleTab(), tournament.getStreamerRow());
-        List<List<Object>> commentator = authenticator.getDataFromRange(tournament.getScheduleTab(), tournament.getCommentatorRow());
-        List<List<Object>> teams = authenticator.getDataFromRange(tournament.getScheduleTab(), tournament.getTeamsRow());
-
-        String dateFormat = tournament
-                .getDateFormat()
-                .replace("%d", "dd")
-                .replace("%m", "MM")
-                .replace("-", "/")
-                + "/yyyy H:m";
-
-        for (int i = 0; i < matchId.size(); i++) {
-            String currentMatchId = (String) matchId.get(i).stream().findFirst().orElse(null);
-            Match oldMatch = tournament.getAllMatches().stream().filter(match -> match.getMatchId().getMatchId().equals(currentMatchId)).findFirst().orElse(null);
-
-            // Reformat the string to database format
-            SimpleDateFormat sheetFormat = new SimpleDateFormat(dateFormat);
-
-            String currentDateString = (String) date.get(i).stream().findFirst().orElse(null);
-            currentDateString += "/" + Calendar.getInstance().get(Calendar.YEAR);
-            currentDateString += " " + time.get(i).stream().findFirst().orElse(null);
-
-            Date currentDate = sheetFormat.parse(currentDateString);
-            String currentPlayerOne = (String) playerOne.get(i).stream().findFirst().orElse(null);
-            String currentPlayerTwo = (String) playerTwo.get(i).stream().findFirst().orElse(null);
-            String currentReferee = referee.size() > i ? (String) referee.get(i).stream().findFirst().orElse(null) : null;
-            String currentStreamer = streamer.size() > i ? (String) streamer.get(i).stream().findFirst().orElse(null) : null;
-            String currentCommentator = commentator.size() > i ? (String) commentator.get(i).stream().findFirst().orElse(null) : null;
-
-            Match match = new Match();
-
-            // Create the primary key
-            MatchId matchIdEmbeddable = new MatchId();
-            matchIdEmbeddable.setMatchId(currentMatchId);
-            matchIdEmbeddable.setServerSnowflake(tournament.getServerSnowflake());
-
-            // Set the primary key & tournament
-            match.setMatchId(matchIdEmbeddable);
-            match.setTournament(tournament);
-
-            match.setDate(currentDate);
-            match.setPlayerOne(currentPlayerOne);
-            match.setPlayerTwo(currentPlayerTwo);
-            match.setReferee(currentReferee);
-            match.setStreamer(currentStreamer);
-            match.setCommentator(currentCommentator);
-
-            // Make sure to update the ignoreMatch from the old saved match
-            if (oldMatch != null) {
-                match.setIgnoreMatch(oldMatch.getIgnoreMatch());
-            }
 
-            tournament.getAllMatches().set(tournament.getAllMatches().indexOf(oldMatch), match);
+        List<String> ranges = new ArrayList<>(Arrays.asList(
+                tournament.getMatchIdRow(),
+                tournament.getDateRow(),
+                tournament.getTimeRow(),
+                tournament.getPlayerOneRow(),
+                tournament.getPlayerTwoRow(),
+                tournament.getRefereeRow(),
+                tournament.getStreamerRow(),
+                tournament.getCommentatorRow()
+        ));
+
+        // Solo tournaments don't have to set the teams row
+        if (tournament.getTeamsRow() != null) {
+            ranges.add(tournament.getTeamsRow());
         }
 
-        for (List<Object> teamObject : teams) {
-            String teamName = teamObject.get(0).toString();
-            String teamCaptain = teamObject.get(1).toString();
+        List<List<List<Object>>> allColumns = spreadsheetGateway.getDataFromRanges(spreadsheetId, tournament.getScheduleTab(), ranges);
+        List<List<Object>> matchIds = allColumns.get(0) != null ? allColumns.get(0) : Collections.emptyList();
+
+        SheetSchedule sheetSchedule = new SheetSchedule();
 
-            Team team = new Team();
+        for (int i = 0; i < matchIds.size(); i++) {
+            SheetMatchRow sheetMatchRow = new SheetMatchRow(i);
 
-            TeamId teamIdEmbeddable = new TeamId();
-            teamIdEmbeddable.setName(teamName);
-            teamIdEmbeddable.setServerSnowflake(tournament.getServerSnowflake());
+            sheetMatchRow.setMatchId(getCellValue(allColumns.get(0), i));
+            sheetMatchRow.setDate(getCellValue(allColumns.get(1), i));
+            sheetMatchRow.setTime(getCellValue(allColumns.get(2), i));
+            sheetMatchRow.setPlayerOne(getCellValue(allColumns.get(3), i));
+            sheetMatchRow.setPlayerTwo(getCellValue(allColumns.get(4), i));
+            sheetMatchRow.setReferee(getCellValue(allColumns.get(5), i));
+            sheetMatchRow.setStreamer(getCellValue(allColumns.get(6), i));
+            sheetMatchRow.setCommentator(getCellValue(allColumns.get(7), i));
 
-            team.setTeamId(teamIdEmbeddable);
-            team.setTournament(tournament);
-            team.setCaptain(teamCaptain);
+            sheetSchedule.getMatchRows().add(sheetMatchRow);
+        }
+
+        if (allColumns.size() > 8 && allColumns.get(8) != null) {
+            sheetSchedule.setTeamRows(allColumns.get(8));
+        }
 
-            tournament.getAllTeams().add(team);
+        return sheetSchedule;
+    }
+
+    /**
+     * Get the first cell of the given row from a column returned by the spreadsheet.
+     * Trailing empty rows are left out by the spreadsheet, so these are treated as empty cells
+     *
+     * @param column the column to get the cell from
+     * @param index  the index of the row
+     * @return the value of the cell or null
+     */
+    public static String getCellValue(List<List<Object>> column, int index) {
+        if (column == null || column.size() <= index || column.get(index) == null) {
+            return null;
         }
 
-        tournamentRepository.save(tournament);
+        return column.get(index).stream().findFirst().map(Object::toString).orElse(null);
     }
 }
@@ -24,24 +24,26 @@
 
 package com.dirk.listeners;
 
+import com.dirk.helper.DateFormats;
 import com.dirk.helper.EmbedHelper;
 import com.dirk.helper.Log;
 import com.dirk.helper.RegisterListener;
+import com.dirk.meta.CommandExecutor;
+import com.dirk.meta.CommandRegistry;
 import com.dirk.meta.CustomCommandComponent;
 import com.dirk.models.command.Command;
 import com.dirk.models.command.CommandArgument;
 import com.dirk.models.command.CommandArgumentType;
 import com.dirk.models.command.CommandParameter;
 import com.dirk.models.entities.CustomCommand;
+import org.javacord.api.entity.server.Server;
 import org.javacord.api.event.message.MessageCreateEvent;
 import org.javacord.api.listener.message.MessageCreateListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -50,56 +52,19 @@ import java.util.List;
 @Component
 public class CommandListener implements MessageCreateListener, RegisterListener {
     private final String discordCommandPrefix;
+    private final CommandRegistry commandRegistry;
+    private final CommandExecutor commandExecutor;
     private final CustomCommandComponent customCommandComponent;
-    private final List<Command> allCommands = new ArrayList<>();
-    private List<CustomCommand> allCustomCommands;
 
     @Autowired
-    public CommandListener(ApplicationContext applicationContext, @Value("${discord.prefix}") String discordCommandPrefix, CustomCommandComponent customCommandComponent) {
+    public CommandListener(@Value("${discord.prefix}") String discordCommandPrefix, CommandRegistry commandRegistry, CommandExecutor commandExecutor, CustomCommandComponent customCommandComponent) {
         this.discordCommandPrefix = discordCommandPrefix;
+        this.commandRegistry = commandRegistry;
+        this.commandExecutor = commandExecutor;
         this.customCommandComponent = customCommandComponent;
-        this.allCustomCommands = customCommandComponent.getAllCustomCommands();
-
-        // Validate commands
-        for (Command command : applicationContext.getBeansOfType(Command.class).values()) {
-            if (command.getCommandName() == null) {
-                Log.error("Unable to register the command " + command.getClass() + ". You have to set the command name in order for it to be recognized.");
-            } else if (command.getDescription() == null) {
-                Log.error("Unable to register the command " + command.getClass() + ". You have to set the description in order for it to be recognized.");
-            } else if (command.getGroup() == null) {
-                Log.error("Unable to register the command " + command.getClass() + ". You have to set the group in order for it to be recognized.");
-            } else if (command.getCommandArgumentsCount() > 0) {
-                int commandArgumentIndex = 1;
-                boolean commandArgumentsValid = true;
-
-                // Loop through all command arguments
-                for (CommandArgument commandArgument : command.getCommandArguments()) {
-                    // Check for String arguments
-                    if (commandArgument.getType() == CommandArgumentType.String) {
-                        // String argument was found, check if it is the last argument
-                        if (commandArgumentIndex != command.getCommandArgumentsCount()) {
-                            commandArgumentsValid = false;
-                            break;
-                        }
-                    }
-
-                    commandArgumentIndex++;
-                }
-
-                if (commandArgumentsValid) {
-                    allCommands.add(command);
-                    Log.info("Registered the command " + command.getClass().getName());
-                } else {
-                    Log.error("Unable to register the command " + command.getClass() + ". The String argument can only be last parameter. Use SingleString for a single word.");
-                }
-            } else {
-                allCommands.add(command);
-                Log.info("Registered the command " + command.getClass().getName());
-            }
-        }
 
         // Log the custom commands
-        for (CustomCommand customCommand : this.allCustomCommands) {
+        for (CustomCommand customCommand : customCommandComponent.getAllCustomCommands()) {
             Log.info("Registered the custom " + (customCommand.getServerSnowflake() == 0L ? "global" : "guild") + " command " + customCommand.getName());
         }
     }
@@ -114,15 +79,13 @@ public class CommandListener implements MessageCreateListener, RegisterListener
         if (!messageCreateEvent.getMessage().getContent().startsWith(discordCommandPrefix))
             return;
 
-        this.allCustomCommands = customCommandComponent.getAllCustomCommands();
-
         // Remove the discord prefix
         List<String> commandSplit = new ArrayList<>(Arrays.asList(messageCreateEvent.getMessage().getContent().substring(discordCommandPrefix.length()).split(" ")));
         String commandName = commandSplit.get(0);
         commandSplit.remove(0);
 
         // Get the command by the given name
-        Command command = this.getCommandByName(commandName);
+        Command command = commandRegistry.getCommandByName(commandName);
 
         // Check if the command exists
         if (command != null) {
@@ -195,9 +158,7 @@ public class CommandListener implements MessageCreateListener, RegisterListener
                                 break;
                             case Date:
                                 try {
-                                    Date formattedDate;
-                                    DateFormat format = new SimpleDateFormat("dd/MM/yyyy");
-                                    formattedDate = format.parse(commandSplitIndex);
+                                    Date formattedDate = DateFormats.toDate(LocalDate.parse(commandSplitIndex, DateFormats.COMMAND_DATE));
 
                                     commandParameter = new CommandParameter(commandArgument.getKey(), formattedDate, true);
                                 } catch (Exception ex) {
@@ -228,63 +189,40 @@ public class CommandListener implements MessageCreateListener, RegisterListener
                     index++;
                 }
 
-                command.execute(messageCreateEvent, commandParameters);
+                execute(messageCreateEvent, commandName, () -> command.execute(messageCreateEvent, commandParameters));
             }
             // The command has no arguments
             else {
-                command.execute(messageCreateEvent);
+                execute(messageCreateEvent, commandName, () -> command.execute(messageCreateEvent));
             }
-
-            Log.info(String.format("%s ran the command: %s", messageCreateEvent.getMessageAuthor().getDiscriminatedName(), commandName));
         } else {
-            CustomCommand customCommand = this.getCustomCommandByName(commandName);
+            Long serverSnowflake = messageCreateEvent.getServer().map(Server::getId).orElse(null);
+            CustomCommand customCommand = customCommandComponent.getCustomCommand(serverSnowflake, commandName);
 
             if (customCommand != null) {
-                // Global command, run regardless of server
-                if (customCommand.getServerSnowflake() == 0L) {
-                    messageCreateEvent.getChannel().sendMessage(customCommand.getMessage());
-                } else {
-                    if (messageCreateEvent.isServerMessage() && messageCreateEvent.getServer().get().getId() == customCommand.getServerSnowflake()) {
-                        messageCreateEvent.getChannel().sendMessage(customCommand.getMessage());
-                    }
-                }
+                messageCreateEvent.getChannel().sendMessage(customCommand.getMessage());
             }
         }
     }
 
     /**
-     * Get a command by the given name
+     * Hand the command over to the CommandExecutor so slow commands don't block the event thread
      *
-     * @param commandName the name of the command
-     * @return the command
+     * @param messageCreateEvent the MessageCreateEvent object of the command
+     * @param commandName        the name of the command that is executed
+     * @param execution          the execution of the command
      */
-    private Command getCommandByName(String commandName) {
-        Command foundCommand = null;
+    private void execute(MessageCreateEvent messageCreateEvent, String commandName, Runnable execution) {
+        long laneSnowflake = messageCreateEvent.getServer().map(Server::getId).orElse(messageCreateEvent.getChannel().getId());
 
-        for (Command command : this.allCommands) {
-            if (command.getCommandName().equals(commandName)) {
-                foundCommand = command;
-            }
-        }
-
-        return foundCommand;
-    }
+        boolean accepted = commandExecutor.submit(laneSnowflake, () -> {
+            execution.run();
 
-    /**
-     * Get a custom command by the given name and server snowflake
-     *
-     * @param commandName the name of the custom command
-     * @return the custom command
-     */
-    private CustomCommand getCustomCommandByName(String commandName) {
-        CustomCommand foundCommand = null;
+            Log.info(String.format("%s ran the command: %s", messageCreateEvent.getMessageAuthor().getDiscriminatedName(), commandName));
+        });
 
-        for (CustomCommand customCommand : this.allCustomCommands) {
-            if (customCommand.getName().equals(commandName)) {
-                foundCommand = customCommand;
-            }
+        if (!accepted) {
+            messageCreateEvent.getChannel().sendMessage(EmbedHelper.genericErrorEmbed("There are too many commands waiting to be processed right now. Try again in a moment.", messageCreateEvent.getMessageAuthor().getDiscriminatedName()));
         }
-
-        return foundCommand;
     }
 }
@@ -24,17 +24,11 @@
 
 package com.dirk.listeners;
 
-import com.dirk.commands.server_moderation.SetupVerificationCommand;
 import com.dirk.helper.EmbedHelper;
-import com.dirk.helper.Log;
 import com.dirk.helper.RegisterListener;
-import com.dirk.models.entities.ServerJoinRole;
-import com.dirk.models.entities.ServerTraffic;
-import com.dirk.repositories.ServerJoinRoleRepository;
-import com.dirk.repositories.ServerTrafficRepository;
-import org.javacord.api.entity.channel.ServerTextChannel;
-import org.javacord.api.entity.permission.Role;
-import org.javacord.api.entity.user.User;
+import com.dirk.meta.GuildConfigurationCache;
+import com.dirk.meta.MemberJoinBuffer;
+import com.dirk.models.GuildConfiguration;
 import org.javacord.api.event.server.member.ServerMemberJoinEvent;
 import org.javacord.api.event.server.member.ServerMemberLeaveEvent;
 import org.javacord.api.listener.server.member.ServerMemberJoinListener;
@@ -42,71 +36,28 @@ import org.javacord.api.listener.server.member.ServerMemberLeaveListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.Optional;
-
 @Component
 public class ServerTrafficListener implements ServerMemberJoinListener, ServerMemberLeaveListener, RegisterListener {
-    private final ServerTrafficRepository serverTrafficRepository;
-    private final ServerJoinRoleRepository serverJoinRoleRepository;
+    private final GuildConfigurationCache guildConfigurationCache;
+    private final MemberJoinBuffer memberJoinBuffer;
 
     @Autowired
-    public ServerTrafficListener(ServerTrafficRepository serverTrafficRepository, ServerJoinRoleRepository serverJoinRoleRepository) {
-        this.serverTrafficRepository = serverTrafficRepository;
-        this.serverJoinRoleRepository = serverJoinRoleRepository;
+    public ServerTrafficListener(GuildConfigurationCache guildConfigurationCache, MemberJoinBuffer memberJoinBuffer) {
+        this.guildConfigurationCache = guildConfigurationCache;
+        this.memberJoinBuffer = memberJoinBuffer;
     }
 
     @Override
     public void onServerMemberJoin(ServerMemberJoinEvent event) {
-        ServerTraffic serverTraffic = serverTrafficRepository.findByServerSnowflake(event.getServer().getId());
-        ServerJoinRole serverJoinRole = serverJoinRoleRepository.findByServerSnowflake(event.getServer().getIdAsString());
-
-        if (serverTraffic != null) {
-            if (serverTraffic.getShowJoining()) {
-                event.getServer().getTextChannelById(serverTraffic.getChannelSnowflake()).ifPresent(serverTextChannel -> serverTextChannel.sendMessage(EmbedHelper.personJoinedServer(serverTraffic.getJoinMessage(), event.getUser())));
-            }
-        }
-
-        // Check for the verifying process
-        Role verifiedRole = event.getServer().getRolesByName(SetupVerificationCommand.VERIFIED_ROLE).stream().findFirst().orElse(null);
-
-        if (verifiedRole != null) {
-            ServerTextChannel textChannel = event.getServer().getTextChannelsByName(SetupVerificationCommand.VERIFICATION_CHANNEL_NAME).stream().findFirst().orElse(null);
-
-            if (textChannel != null) {
-                textChannel.sendMessage("Hello " + event.getUser().getMentionTag() + "! In order for you to view all channels, run the command `d!verify` and follow the instructions.");
-            }
-        }
-
-        if (serverJoinRole != null) {
-            Optional<Role> role = event.getServer().getRoleById(serverJoinRole.getRoleSnowflake()).stream().findFirst();
-
-            if (role.isPresent()) {
-                Optional<User> user = event.getServer().getMemberById(event.getUser().getId()).stream().findFirst();
-
-                if (user.isPresent()) {
-                    user.get().addRole(role.get()).whenComplete((unused, throwable) -> {
-                        if (throwable != null) {
-                            Log.error("Unable to add the role to \"" + event.getUser().getId() + "\" // \"" + event.getUser().getDiscriminatedName() + "\"");
-                            Log.error(throwable.getMessage());
-                        }
-                    });
-                } else {
-                    Log.error("Could not find the user \"" + event.getUser().getId() + "\" // \"" + event.getUser().getDiscriminatedName() + "\"");
-                }
-            } else {
-                Log.error("Could not find role \"" + serverJoinRole.getRoleSnowflake() + "\"");
-            }
-        }
+        memberJoinBuffer.memberJoined(event.getServer(), event.getUser());
     }
 
     @Override
     public void onServerMemberLeave(ServerMemberLeaveEvent event) {
-        ServerTraffic serverTraffic = serverTrafficRepository.findByServerSnowflake(event.getServer().getId());
+        GuildConfiguration guildConfiguration = guildConfigurationCache.getConfiguration(event.getServer());
 
-        if (serverTraffic != null) {
-            if (serverTraffic.getShowLeaving()) {
-                event.getServer().getTextChannelById(serverTraffic.getChannelSnowflake()).ifPresent(serverTextChannel -> serverTextChannel.sendMessage(EmbedHelper.personLeaveServer(serverTraffic.getJoinMessage(), event.getUser())));
-            }
+        if (guildConfiguration.isShowLeaving()) {
+            event.getServer().getTextChannelById(guildConfiguration.getTrafficChannelSnowflake()).ifPresent(serverTextChannel -> serverTextChannel.sendMessage(EmbedHelper.personLeaveServer(guildConfiguration.getJoinMessage(), event.getUser())));
         }
     }
 }
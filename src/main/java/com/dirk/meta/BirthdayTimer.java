@@ -28,12 +28,16 @@ import com.dirk.DiscordConfiguration;
 import com.dirk.models.entities.Birthday;
 import com.dirk.repositories.BirthdayRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.util.Calendar;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.stream.Collectors;
 
 @Component
 public class BirthdayTimer {
@@ -49,6 +53,8 @@ public class BirthdayTimer {
             "RING THE BELLS :bell: :bell: !! {{birthdayUserPing}} is celebrating their birthday today!! Go wish them a happy birthday {{birthdayRolePing}}!"
     );
 
+    private final Random random = new Random();
+
     BirthdayRepository birthdayRepository;
     DiscordConfiguration discordConfiguration;
 
@@ -58,36 +64,45 @@ public class BirthdayTimer {
         this.discordConfiguration = discordConfiguration;
     }
 
-    // <second> <minute> <hour> <day-of-month> <month> <day-of-week> <year> <command>
-    @Scheduled(cron = "0 0 0 * * *")
-    public void birthdayTask() {
-        List<Birthday> birthdayList = (List<Birthday>) birthdayRepository.findAll();
+    /**
+     * Fill in the month and day of birthdays that were stored before these were derived
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void deriveMissingBirthdayDays() {
+        List<Birthday> birthdayList = birthdayRepository.findAllByBirthdayMonthIsNull();
 
         for (Birthday birthday : birthdayList) {
-            Calendar today = Calendar.getInstance();
-            Calendar birthdayDate = Calendar.getInstance();
-            birthdayDate.setTime(birthday.getBirthday());
+            birthday.setBirthday(birthday.getBirthday());
+        }
+
+        birthdayRepository.saveAll(birthdayList);
+    }
 
-            if (today.get(Calendar.DAY_OF_MONTH) == birthdayDate.get(Calendar.DAY_OF_MONTH) &&
-                    today.get(Calendar.MONTH) == birthdayDate.get(Calendar.MONTH)) {
+    // <second> <minute> <hour> <day-of-month> <month> <day-of-week> <year> <command>
+    @Scheduled(cron = "0 0 0 * * *")
+    public void birthdayTask() {
+        Calendar today = Calendar.getInstance();
+        List<Birthday> birthdayList = birthdayRepository.findAllByBirthdayMonthAndBirthdayDay(today.get(Calendar.MONTH) + 1, today.get(Calendar.DAY_OF_MONTH));
 
-                discordConfiguration
-                        .getDiscordApi()
-                        .getServerById(birthday.getBirthdayId().getServerSnowflake())
-                        .ifPresent(server -> server.getRolesByName(BIRTHDAY_ROLE_NAME).stream().findFirst()
-                                .ifPresent(role -> server.getTextChannelsByName(BIRTHDAY_CHANNEL_NAME).stream().findFirst()
-                                        .ifPresent(textChannel -> {
-                                            Random random = new Random();
-                                            String birthdayString = BIRTHDAY_MESSAGES.get(random.nextInt(BIRTHDAY_MESSAGES.size()));
+        Map<String, List<Birthday>> birthdaysPerServer = birthdayList
+                .stream()
+                .collect(Collectors.groupingBy(birthday -> birthday.getBirthdayId().getServerSnowflake()));
 
-                                            birthdayString = birthdayString.replace("{{birthdayUserPing}}", "<@" + birthday.getBirthdayId().getUserSnowflake() + ">")
-                                                    .replace("{{birthdayRolePing}}", role.getMentionTag());
+        // Look up the role and channel once per server, the messages of all servers are sent at the same time
+        birthdaysPerServer.forEach((serverSnowflake, serverBirthdays) -> discordConfiguration
+                .getDiscordApi()
+                .getServerById(serverSnowflake)
+                .ifPresent(server -> server.getRolesByName(BIRTHDAY_ROLE_NAME).stream().findFirst()
+                        .ifPresent(role -> server.getTextChannelsByName(BIRTHDAY_CHANNEL_NAME).stream().findFirst()
+                                .ifPresent(textChannel -> {
+                                    for (Birthday birthday : serverBirthdays) {
+                                        String birthdayString = BIRTHDAY_MESSAGES.get(random.nextInt(BIRTHDAY_MESSAGES.size()));
 
-                                            textChannel.sendMessage(birthdayString);
-                                        })));
+                                        birthdayString = birthdayString.replace("{{birthdayUserPing}}", "<@" + birthday.getBirthdayId().getUserSnowflake() + ">")
+                                                .replace("{{birthdayRolePing}}", role.getMentionTag());
 
-            }
-        }
+                                        textChannel.sendMessage(birthdayString);
+                                    }
+                                }))));
     }
 }
-
@@ -0,0 +1,205 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.meta;
+
+import com.dirk.helper.Log;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs commands away from the Javacord event thread. Every guild gets its own lane so commands
+ * of a single guild run in the order they were received, while different guilds run in parallel.
+ */
+@Component
+public class CommandExecutor {
+    private final ExecutorService executorService;
+    private final int maxQueuedCommands;
+    private final int maxQueuedCommandsPerLane;
+    private final AtomicInteger queuedCommands = new AtomicInteger();
+    private final ConcurrentHashMap<Long, Lane> lanes = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CommandExecutor(@Value("${discord.commands.threads:4}") int threads,
+                           @Value("${discord.commands.max-queued:500}") int maxQueuedCommands,
+                           @Value("${discord.commands.max-queued-per-guild:25}") int maxQueuedCommandsPerLane,
+                           @Value("${discord.commands.virtual-threads:false}") boolean virtualThreads) {
+        this.maxQueuedCommands = maxQueuedCommands;
+        this.maxQueuedCommandsPerLane = maxQueuedCommandsPerLane;
+
+        ExecutorService virtualThreadExecutor = virtualThreads ? createVirtualThreadExecutor() : null;
+
+        if (virtualThreadExecutor != null) {
+            this.executorService = virtualThreadExecutor;
+            Log.info("Running commands on virtual threads");
+        } else {
+            this.executorService = Executors.newFixedThreadPool(threads, new CommandThreadFactory());
+            Log.info("Running commands on " + threads + " threads");
+        }
+    }
+
+    /**
+     * Queue a task in the lane of the given snowflake
+     *
+     * @param laneSnowflake the snowflake of the guild (or private channel) the task belongs to
+     * @param task          the task to run
+     * @return whether or not the task was accepted
+     */
+    public boolean submit(long laneSnowflake, Runnable task) {
+        // Check the global queue depth
+        if (queuedCommands.incrementAndGet() > maxQueuedCommands) {
+            queuedCommands.decrementAndGet();
+            Log.error("Rejected a command for " + laneSnowflake + ", there are already " + maxQueuedCommands + " commands queued.");
+            return false;
+        }
+
+        CompletableFuture<Void> finished = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<Void>> previousTail = new AtomicReference<>();
+
+        lanes.compute(laneSnowflake, (snowflake, lane) -> {
+            if (lane == null) {
+                lane = new Lane();
+            }
+
+            // Check the queue depth of the lane
+            if (lane.queued < maxQueuedCommandsPerLane) {
+                lane.queued++;
+                previousTail.set(lane.tail);
+                lane.tail = finished;
+            }
+
+            return lane;
+        });
+
+        if (previousTail.get() == null) {
+            queuedCommands.decrementAndGet();
+            lanes.computeIfPresent(laneSnowflake, (snowflake, lane) -> lane.queued == 0 ? null : lane);
+            Log.error("Rejected a command for " + laneSnowflake + ", there are already " + maxQueuedCommandsPerLane + " commands queued for it.");
+            return false;
+        }
+
+        // The task runs once the task before it is done, however that one ended. The tail of the lane always
+        // completes normally, so a failure never blocks the tasks after it
+        previousTail.get().whenComplete((result, throwable) -> {
+            try {
+                executorService.execute(() -> {
+                    try {
+                        run(laneSnowflake, task);
+                    } finally {
+                        finished.complete(null);
+                    }
+                });
+            } catch (Throwable ex) {
+                Log.error("Unable to run a command for " + laneSnowflake + ", the executor rejected it: " + ex.getMessage());
+                release(laneSnowflake);
+                finished.complete(null);
+            }
+        });
+
+        return true;
+    }
+
+    /**
+     * Get the amount of tasks that are waiting or running
+     *
+     * @return the amount of queued tasks
+     */
+    public int getQueuedCommands() {
+        return queuedCommands.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdown();
+    }
+
+    /**
+     * Run the task and release its spot in the queue, the lane is removed once it is empty
+     *
+     * @param laneSnowflake the snowflake of the lane
+     * @param task          the task to run
+     */
+    private void run(long laneSnowflake, Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable ex) {
+            Log.error("Unable to run a command for " + laneSnowflake + ": " + ex.getMessage());
+            ex.printStackTrace();
+        } finally {
+            release(laneSnowflake);
+        }
+    }
+
+    /**
+     * Release the spot of a task in the queue, the lane is removed once it is empty
+     *
+     * @param laneSnowflake the snowflake of the lane
+     */
+    private void release(long laneSnowflake) {
+        queuedCommands.decrementAndGet();
+        lanes.computeIfPresent(laneSnowflake, (snowflake, lane) -> --lane.queued == 0 ? null : lane);
+    }
+
+    /**
+     * Create an executor that starts a virtual thread per task. Looked up reflectively so the bot
+     * still builds and runs on Java 11, where this returns null
+     *
+     * @return the executor or null when virtual threads are not available
+     */
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            Log.error("Virtual threads are not available on Java " + Runtime.version().feature() + ", falling back to platform threads.");
+            return null;
+        }
+    }
+
+    private static class Lane {
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+        private int queued;
+    }
+
+    private static class CommandThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "command-executor-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.meta;
+
+import com.dirk.helper.Log;
+import com.dirk.models.command.Command;
+import com.dirk.models.command.CommandArgument;
+import com.dirk.models.command.CommandArgumentType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+public class CommandRegistry {
+    private final Map<String, Command> commandsByName;
+
+    @Autowired
+    public CommandRegistry(ApplicationContext applicationContext) {
+        Map<String, Command> allCommands = new HashMap<>();
+
+        // Validate commands
+        for (Command command : applicationContext.getBeansOfType(Command.class).values()) {
+            if (command.getCommandName() == null) {
+                Log.error("Unable to register the command " + command.getClass() + ". You have to set the command name in order for it to be recognized.");
+            } else if (command.getDescription() == null) {
+                Log.error("Unable to register the command " + command.getClass() + ". You have to set the description in order for it to be recognized.");
+            } else if (command.getGroup() == null) {
+                Log.error("Unable to register the command " + command.getClass() + ". You have to set the group in order for it to be recognized.");
+            } else if (!hasValidCommandArguments(command)) {
+                Log.error("Unable to register the command " + command.getClass() + ". The String argument can only be last parameter. Use SingleString for a single word.");
+            } else {
+                registerName(allCommands, command.getCommandName(), command);
+
+                for (String alias : command.getAliases()) {
+                    registerName(allCommands, alias, command);
+                }
+
+                Log.info("Registered the command " + command.getClass().getName());
+            }
+        }
+
+        this.commandsByName = Map.copyOf(allCommands);
+    }
+
+    /**
+     * Get a command by the given name or alias
+     *
+     * @param commandName the name or alias of the command
+     * @return the command or null
+     */
+    public Command getCommandByName(String commandName) {
+        return this.commandsByName.get(commandName);
+    }
+
+    /**
+     * Add the name to the registry, the first command to claim a name keeps it
+     *
+     * @param allCommands the commands registered so far
+     * @param name        the name or alias to register
+     * @param command     the command to register the name for
+     */
+    private static void registerName(Map<String, Command> allCommands, String name, Command command) {
+        Command existingCommand = allCommands.putIfAbsent(name, command);
+
+        if (existingCommand != null && existingCommand != command) {
+            Log.error("Unable to register the name " + name + " for the command " + command.getClass() + ". It is already used by " + existingCommand.getClass() + ".");
+        }
+    }
+
+    /**
+     * Check if the String argument of a command is only used as the last argument
+     *
+     * @param command the command to check
+     * @return whether or not the arguments are valid
+     */
+    private static boolean hasValidCommandArguments(Command command) {
+        int commandArgumentIndex = 1;
+
+        // Loop through all command arguments
+        for (CommandArgument commandArgument : command.getCommandArguments()) {
+            // String argument was found, check if it is the last argument
+            if (commandArgument.getType() == CommandArgumentType.String && commandArgumentIndex != command.getCommandArgumentsCount()) {
+                return false;
+            }
+
+            commandArgumentIndex++;
+        }
+
+        return true;
+    }
+}
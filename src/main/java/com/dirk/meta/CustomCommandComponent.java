@@ -24,24 +24,28 @@
 
 package com.dirk.meta;
 
+import com.dirk.helper.Log;
 import com.dirk.models.entities.CustomCommand;
 import com.dirk.repositories.CustomCommandRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Component
 public class CustomCommandComponent {
     private final CustomCommandRepository customCommandRepository;
-    private List<CustomCommand> allCustomCommands;
+    private volatile List<CustomCommand> allCustomCommands;
+    private volatile Map<Long, Map<String, CustomCommand>> customCommandsPerServer;
 
     @Autowired
     public CustomCommandComponent(CustomCommandRepository customCommandRepository) {
         this.customCommandRepository = customCommandRepository;
 
-        allCustomCommands = (List<CustomCommand>) customCommandRepository.findAll();
+        refreshCustomCommandsFromJPA();
     }
 
     @Bean
@@ -49,8 +53,49 @@ public class CustomCommandComponent {
         return this.allCustomCommands;
     }
 
+    /**
+     * Get a custom command by the given name. Guild commands take precedence over global commands
+     *
+     * @param serverSnowflake the server the command was used in, or null outside of a server
+     * @param commandName     the name of the custom command
+     * @return the custom command or null
+     */
+    public CustomCommand getCustomCommand(Long serverSnowflake, String commandName) {
+        Map<Long, Map<String, CustomCommand>> customCommands = this.customCommandsPerServer;
+        CustomCommand customCommand = null;
+
+        if (serverSnowflake != null) {
+            customCommand = customCommands.getOrDefault(serverSnowflake, Map.of()).get(commandName);
+        }
+
+        if (customCommand == null) {
+            customCommand = customCommands.getOrDefault(0L, Map.of()).get(commandName);
+        }
+
+        return customCommand;
+    }
+
     @Bean
     public void refreshCustomCommandsFromJPA() {
-        allCustomCommands = (List<CustomCommand>) customCommandRepository.findAll();
+        List<CustomCommand> customCommands = (List<CustomCommand>) customCommandRepository.findAll();
+        Map<Long, Map<String, CustomCommand>> newCustomCommandsPerServer = new HashMap<>();
+
+        for (CustomCommand customCommand : customCommands) {
+            // The immutable copies don't allow null keys, so a broken row would abort the whole refresh
+            if (customCommand.getServerSnowflake() == null || customCommand.getName() == null) {
+                Log.error("Skipped custom command " + customCommand.getId() + ", it has no server or name");
+                continue;
+            }
+
+            newCustomCommandsPerServer
+                    .computeIfAbsent(customCommand.getServerSnowflake(), serverSnowflake -> new HashMap<>())
+                    .putIfAbsent(customCommand.getName(), customCommand);
+        }
+
+        // Swap in immutable copies so lookups never see a half built index
+        newCustomCommandsPerServer.replaceAll((serverSnowflake, commands) -> Map.copyOf(commands));
+
+        this.customCommandsPerServer = Map.copyOf(newCustomCommandsPerServer);
+        this.allCustomCommands = customCommands;
     }
 }
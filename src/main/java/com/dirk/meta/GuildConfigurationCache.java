@@ -0,0 +1,164 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.meta;
+
+import com.dirk.commands.server_moderation.SetupVerificationCommand;
+import com.dirk.helper.RegisterListener;
+import com.dirk.models.GuildConfiguration;
+import com.dirk.models.entities.ServerJoinRole;
+import com.dirk.models.entities.ServerTraffic;
+import com.dirk.repositories.ServerJoinRoleRepository;
+import com.dirk.repositories.ServerTrafficRepository;
+import org.javacord.api.entity.DiscordEntity;
+import org.javacord.api.entity.server.Server;
+import org.javacord.api.event.channel.server.ServerChannelChangeNameEvent;
+import org.javacord.api.event.channel.server.ServerChannelCreateEvent;
+import org.javacord.api.event.channel.server.ServerChannelDeleteEvent;
+import org.javacord.api.event.server.ServerLeaveEvent;
+import org.javacord.api.event.server.role.RoleChangeNameEvent;
+import org.javacord.api.event.server.role.RoleCreateEvent;
+import org.javacord.api.event.server.role.RoleDeleteEvent;
+import org.javacord.api.listener.channel.server.ServerChannelChangeNameListener;
+import org.javacord.api.listener.channel.server.ServerChannelCreateListener;
+import org.javacord.api.listener.channel.server.ServerChannelDeleteListener;
+import org.javacord.api.listener.server.ServerLeaveListener;
+import org.javacord.api.listener.server.role.RoleChangeNameListener;
+import org.javacord.api.listener.server.role.RoleCreateListener;
+import org.javacord.api.listener.server.role.RoleDeleteListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the join and leave settings of every guild so member joins and leaves don't have to query the database.
+ * The commands that change these settings invalidate the guild, and so does creating, renaming or deleting a role or
+ * channel since the verified role, the verification channel and the join role are looked up once per load.
+ */
+@Component
+public class GuildConfigurationCache implements RoleCreateListener, RoleDeleteListener, RoleChangeNameListener, ServerChannelCreateListener,
+        ServerChannelDeleteListener, ServerChannelChangeNameListener, ServerLeaveListener, RegisterListener {
+    private final ServerTrafficRepository serverTrafficRepository;
+    private final ServerJoinRoleRepository serverJoinRoleRepository;
+    private final ConcurrentHashMap<Long, GuildConfiguration> configurationPerGuild = new ConcurrentHashMap<>();
+
+    @Autowired
+    public GuildConfigurationCache(ServerTrafficRepository serverTrafficRepository, ServerJoinRoleRepository serverJoinRoleRepository) {
+        this.serverTrafficRepository = serverTrafficRepository;
+        this.serverJoinRoleRepository = serverJoinRoleRepository;
+    }
+
+    /**
+     * Get the configuration of the given guild, it is loaded the first time it is requested
+     *
+     * @param server the guild to get the configuration for
+     * @return the configuration
+     */
+    public GuildConfiguration getConfiguration(Server server) {
+        return configurationPerGuild.computeIfAbsent(server.getId(), serverSnowflake -> loadConfiguration(server));
+    }
+
+    /**
+     * Drop the cached configuration of the given guild
+     *
+     * @param serverSnowflake the guild to invalidate
+     */
+    public void invalidate(long serverSnowflake) {
+        configurationPerGuild.remove(serverSnowflake);
+    }
+
+    @Override
+    public void onRoleCreate(RoleCreateEvent event) {
+        invalidate(event.getServer().getId());
+    }
+
+    @Override
+    public void onRoleDelete(RoleDeleteEvent event) {
+        invalidate(event.getServer().getId());
+    }
+
+    @Override
+    public void onRoleChangeName(RoleChangeNameEvent event) {
+        invalidate(event.getServer().getId());
+    }
+
+    @Override
+    public void onServerChannelCreate(ServerChannelCreateEvent event) {
+        invalidate(event.getServer().getId());
+    }
+
+    @Override
+    public void onServerChannelDelete(ServerChannelDeleteEvent event) {
+        invalidate(event.getServer().getId());
+    }
+
+    @Override
+    public void onServerChannelChangeName(ServerChannelChangeNameEvent event) {
+        invalidate(event.getServer().getId());
+    }
+
+    @Override
+    public void onServerLeave(ServerLeaveEvent event) {
+        invalidate(event.getServer().getId());
+    }
+
+    /**
+     * Load the configuration of the given guild from the database and the guild itself
+     *
+     * @param server the guild to load the configuration for
+     * @return the configuration
+     */
+    private GuildConfiguration loadConfiguration(Server server) {
+        ServerTraffic serverTraffic = serverTrafficRepository.findByServerSnowflake(server.getId());
+        ServerJoinRole serverJoinRole = serverJoinRoleRepository.findByServerSnowflake(server.getIdAsString());
+
+        Long verifiedRoleSnowflake = server.getRolesByName(SetupVerificationCommand.VERIFIED_ROLE).stream().findFirst().map(DiscordEntity::getId).orElse(null);
+        Long verificationChannelSnowflake = server.getTextChannelsByName(SetupVerificationCommand.VERIFICATION_CHANNEL_NAME).stream().findFirst().map(DiscordEntity::getId).orElse(null);
+
+        return new GuildConfiguration(
+                serverTraffic != null ? serverTraffic.getChannelSnowflake() : null,
+                serverTraffic != null && serverTraffic.getShowJoining(),
+                serverTraffic != null && serverTraffic.getShowLeaving(),
+                serverTraffic != null ? serverTraffic.getJoinMessage() : null,
+                serverJoinRole != null ? parseSnowflake(serverJoinRole.getRoleSnowflake()) : null,
+                verifiedRoleSnowflake,
+                verificationChannelSnowflake
+        );
+    }
+
+    /**
+     * Parse the given snowflake
+     *
+     * @param snowflake the snowflake to parse
+     * @return the snowflake or null when it isn't a valid snowflake
+     */
+    private static Long parseSnowflake(String snowflake) {
+        try {
+            return Long.parseLong(snowflake);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.meta;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Locks to change the staff of a match. A staff change reads the cell, changes it and writes it back, the lock
+ * makes sure two changes of the same row never overlap, while changes of different matches still run in parallel.
+ * The locks are striped so the amount of locks doesn't grow with the amount of matches.
+ * Edits that are made in the spreadsheet itself don't take the lock, those are picked up by
+ * {@link TournamentSynchronizer#applyMatchChange} which marks the tournament to be synchronized in full.
+ */
+@Component
+public class MatchLocks {
+    private static final int STRIPES = 64;
+
+    private final Lock[] locks = new Lock[STRIPES];
+
+    public MatchLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Get the lock of the row of the given match, every match has a row of its own in the schedule
+     *
+     * @param spreadsheetId the spreadsheet of the match
+     * @param matchId       the id of the match
+     * @return the lock of the match
+     */
+    public Lock getLock(String spreadsheetId, String matchId) {
+        return locks[Math.floorMod(Objects.hash(spreadsheetId, matchId), STRIPES)];
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.meta;
+
+import com.dirk.models.tournament.Match;
+import com.dirk.models.tournament.Tournament;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of the spreadsheet row of every match so commands don't have to download the
+ * match id column to find a match. The rows are loaded from the stored matches of a tournament
+ * and dropped whenever the tournament is synchronized.
+ */
+@Component
+public class MatchRowIndexCache {
+    private final ConcurrentHashMap<String, Map<String, Integer>> rowIndexesPerTournament = new ConcurrentHashMap<>();
+
+    /**
+     * Get the row index of the given match
+     *
+     * @param tournament the tournament of the match
+     * @param matchId    the id of the match
+     * @return the index of the row or null when it is unknown
+     */
+    public Integer getRowIndex(Tournament tournament, String matchId) {
+        return rowIndexesPerTournament
+                .computeIfAbsent(tournament.getServerSnowflake(), serverSnowflake -> loadRowIndexes(tournament))
+                .get(matchId);
+    }
+
+    /**
+     * Drop the cached rows of the given tournament
+     *
+     * @param serverSnowflake the server of the tournament
+     */
+    public void invalidate(String serverSnowflake) {
+        rowIndexesPerTournament.remove(serverSnowflake);
+    }
+
+    /**
+     * Get the row indexes of all stored matches of the tournament
+     *
+     * @param tournament the tournament to get the row indexes for
+     * @return the row index per match id
+     */
+    private static Map<String, Integer> loadRowIndexes(Tournament tournament) {
+        Map<String, Integer> rowIndexes = new HashMap<>();
+
+        for (Match match : tournament.getAllMatches()) {
+            if (match.getRowIndex() != null) {
+                rowIndexes.put(match.getMatchId().getMatchId(), match.getRowIndex());
+            }
+        }
+
+        return Map.copyOf(rowIndexes);
+    }
+}
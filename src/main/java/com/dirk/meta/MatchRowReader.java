@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.meta;
+
+import com.dirk.helper.TournamentHelper;
+import com.dirk.models.SpreadsheetGateway;
+import com.dirk.models.tournament.SheetMatchRow;
+import com.dirk.models.tournament.Tournament;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+@Component
+public class MatchRowReader {
+    private final SpreadsheetGateway spreadsheetGateway;
+    private final TournamentSynchronizer tournamentSynchronizer;
+    private final MatchRowIndexCache matchRowIndexCache;
+
+    @Autowired
+    public MatchRowReader(SpreadsheetGateway spreadsheetGateway, TournamentSynchronizer tournamentSynchronizer, MatchRowIndexCache matchRowIndexCache) {
+        this.spreadsheetGateway = spreadsheetGateway;
+        this.tournamentSynchronizer = tournamentSynchronizer;
+        this.matchRowIndexCache = matchRowIndexCache;
+    }
+
+    /**
+     * Get the row of the given match from the spreadsheet. The row is looked up in the row index cache and checked
+     * against the match id that was read, when the match is unknown or has moved the tournament is synchronized first
+     *
+     * @param tournament the tournament of the match
+     * @param matchId    the id of the match
+     * @return the row of the match or null when the match doesn't exist
+     * @throws IOException the error when something fails
+     */
+    @Transactional
+    public SheetMatchRow readMatchRow(Tournament tournament, String matchId) throws IOException {
+        Integer rowIndex = matchRowIndexCache.getRowIndex(tournament, matchId);
+
+        if (rowIndex != null) {
+            SheetMatchRow sheetMatchRow = readRow(tournament, rowIndex);
+
+            if (matchId.equals(sheetMatchRow.getMatchId())) {
+                return sheetMatchRow;
+            }
+        }
+
+        // The match is unknown or the rows have moved since the last synchronization
+        tournamentSynchronizer.synchronize(tournament);
+        rowIndex = matchRowIndexCache.getRowIndex(tournament, matchId);
+
+        return rowIndex != null ? readRow(tournament, rowIndex) : null;
+    }
+
+    /**
+     * Get all columns of the given row from the spreadsheet in a single request
+     *
+     * @param tournament the tournament to read the row from
+     * @param rowIndex   the index of the row
+     * @return the row
+     * @throws IOException the error when something fails
+     */
+    public SheetMatchRow readRow(Tournament tournament, int rowIndex) throws IOException {
+        String spreadsheetId = TournamentHelper.getSpreadsheetIdFromUrl(tournament.getSpreadsheet());
+
+        List<String> ranges = Arrays.asList(
+                TournamentHelper.getRangeFromRow(tournament.getMatchIdRow(), rowIndex),
+                TournamentHelper.getRangeFromRow(tournament.getDateRow(), rowIndex),
+                TournamentHelper.getRangeFromRow(tournament.getTimeRow(), rowIndex),
+                TournamentHelper.getRangeFromRow(tournament.getPlayerOneRow(), rowIndex),
+                TournamentHelper.getRangeFromRow(tournament.getPlayerTwoRow(), rowIndex),
+                TournamentHelper.getRangeFromRow(tournament.getRefereeRow(), rowIndex),
+                TournamentHelper.getRangeFromRow(tournament.getStreamerRow(), rowIndex),
+                TournamentHelper.getRangeFromRow(tournament.getCommentatorRow(), rowIndex)
+        );
+
+        List<List<List<Object>>> allCells = spreadsheetGateway.getDataFromRanges(spreadsheetId, tournament.getScheduleTab(), ranges);
+
+        SheetMatchRow sheetMatchRow = new SheetMatchRow(rowIndex);
+
+        sheetMatchRow.setMatchId(TournamentHelper.getCellValue(allCells.get(0), 0));
+        sheetMatchRow.setDate(TournamentHelper.getCellValue(allCells.get(1), 0));
+        sheetMatchRow.setTime(TournamentHelper.getCellValue(allCells.get(2), 0));
+        sheetMatchRow.setPlayerOne(TournamentHelper.getCellValue(allCells.get(3), 0));
+        sheetMatchRow.setPlayerTwo(TournamentHelper.getCellValue(allCells.get(4), 0));
+        sheetMatchRow.setReferee(TournamentHelper.getCellValue(allCells.get(5), 0));
+        sheetMatchRow.setStreamer(TournamentHelper.getCellValue(allCells.get(6), 0));
+        sheetMatchRow.setCommentator(TournamentHelper.getCellValue(allCells.get(7), 0));
+
+        return sheetMatchRow;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.meta;
+
+import com.dirk.helper.EmbedHelper;
+import com.dirk.helper.Log;
+import com.dirk.models.GuildConfiguration;
+import org.javacord.api.entity.channel.ServerTextChannel;
+import org.javacord.api.entity.message.embed.EmbedBuilder;
+import org.javacord.api.entity.permission.Role;
+import org.javacord.api.entity.server.Server;
+import org.javacord.api.entity.user.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Welcomes the members that join a guild. The first member that joins is welcomed right away, the members that
+ * join within the burst window after that are gathered and welcomed together once the window has passed.
+ */
+@Component
+public class MemberJoinBuffer {
+    // Discord doesn't allow messages longer than this
+    private static final int MAX_MESSAGE_LENGTH = 2000;
+    private static final String VERIFICATION_MESSAGE = "! In order for you to view all channels, run the command `d!verify` and follow the instructions.";
+
+    private final GuildConfigurationCache guildConfigurationCache;
+    private final RoleAssignmentQueue roleAssignmentQueue;
+    private final long burstWindow;
+    private final ScheduledExecutorService scheduler;
+    // The members that joined during the open window of a guild
+    private final Map<Long, List<User>> pendingJoins = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MemberJoinBuffer(GuildConfigurationCache guildConfigurationCache, RoleAssignmentQueue roleAssignmentQueue, @Value("${discord.joins.burst-window:3000}") long burstWindow) {
+        this.guildConfigurationCache = guildConfigurationCache;
+        this.roleAssignmentQueue = roleAssignmentQueue;
+        this.burstWindow = burstWindow;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "member-join-buffer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Welcome the member right away or add it to the window that is open for the guild
+     *
+     * @param server the guild the member joined
+     * @param user   the member that joined
+     */
+    public void memberJoined(Server server, User user) {
+        boolean[] openedWindow = {false};
+
+        pendingJoins.compute(server.getId(), (serverSnowflake, pending) -> {
+            if (pending == null) {
+                openedWindow[0] = true;
+                return new ArrayList<>();
+            }
+
+            pending.add(user);
+            return pending;
+        });
+
+        if (openedWindow[0]) {
+            // Close the window first, otherwise a failed welcome would keep it open for good
+            scheduler.schedule(() -> flush(server), burstWindow, TimeUnit.MILLISECONDS);
+            welcome(server, List.of(user));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Welcome the members that joined during the window, the window stays open as long as members keep joining
+     *
+     * @param server the guild to welcome the members for
+     */
+    private void flush(Server server) {
+        List<User> joinedMembers = new ArrayList<>();
+
+        pendingJoins.computeIfPresent(server.getId(), (serverSnowflake, pending) -> {
+            joinedMembers.addAll(pending);
+            return pending.isEmpty() ? null : new ArrayList<>();
+        });
+
+        if (!joinedMembers.isEmpty()) {
+            welcome(server, joinedMembers);
+            scheduler.schedule(() -> flush(server), burstWindow, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Welcome the given members, a failure is logged so the window of the guild keeps working
+     *
+     * @param server        the guild the members joined
+     * @param joinedMembers the members that joined
+     */
+    private void welcome(Server server, List<User> joinedMembers) {
+        try {
+            sendWelcome(server, joinedMembers);
+        } catch (Exception ex) {
+            Log.error("Unable to welcome " + joinedMembers.size() + " members in \"" + server.getId() + "\": " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Send the join message and verification message for the given members and give them the join role
+     *
+     * @param server        the guild the members joined
+     * @param joinedMembers the members that joined
+     */
+    private void sendWelcome(Server server, List<User> joinedMembers) {
+        GuildConfiguration guildConfiguration = guildConfigurationCache.getConfiguration(server);
+
+        if (guildConfiguration.isShowJoining()) {
+            server.getTextChannelById(guildConfiguration.getTrafficChannelSnowflake()).ifPresent(serverTextChannel -> {
+                if (joinedMembers.size() == 1) {
+                    serverTextChannel.sendMessage(EmbedHelper.personJoinedServer(guildConfiguration.getJoinMessage(), joinedMembers.get(0)));
+                    return;
+                }
+
+                for (EmbedBuilder embed : EmbedHelper.peopleJoinedServer(guildConfiguration.getJoinMessage(), joinedMembers)) {
+                    serverTextChannel.sendMessage(embed);
+                }
+            });
+        }
+
+        // Check for the verifying process
+        if (guildConfiguration.getVerifiedRoleSnowflake() != null && guildConfiguration.getVerificationChannelSnowflake() != null) {
+            ServerTextChannel textChannel = server.getTextChannelById(guildConfiguration.getVerificationChannelSnowflake()).orElse(null);
+
+            if (textChannel != null) {
+                sendVerificationMessages(textChannel, joinedMembers);
+            }
+        }
+
+        if (guildConfiguration.getJoinRoleSnowflake() != null) {
+            Role role = server.getRoleById(guildConfiguration.getJoinRoleSnowflake()).orElse(null);
+
+            if (role != null) {
+                for (User user : joinedMembers) {
+                    roleAssignmentQueue.addRole(server, user, role);
+                }
+            } else {
+                Log.error("Could not find role \"" + guildConfiguration.getJoinRoleSnowflake() + "\"");
+            }
+        }
+    }
+
+    /**
+     * Mention the given members in as few verification messages as possible
+     *
+     * @param textChannel   the verification channel
+     * @param joinedMembers the members to mention
+     */
+    private static void sendVerificationMessages(ServerTextChannel textChannel, List<User> joinedMembers) {
+        StringBuilder mentions = new StringBuilder();
+
+        for (User user : joinedMembers) {
+            if (mentions.length() > 0 && "Hello ".length() + mentions.length() + user.getMentionTag().length() + 2 + VERIFICATION_MESSAGE.length() > MAX_MESSAGE_LENGTH) {
+                textChannel.sendMessage("Hello " + mentions + VERIFICATION_MESSAGE);
+                mentions.setLength(0);
+            }
+
+            if (mentions.length() > 0) {
+                mentions.append(", ");
+            }
+
+            mentions.append(user.getMentionTag());
+        }
+
+        textChannel.sendMessage("Hello " + mentions + VERIFICATION_MESSAGE);
+    }
+}
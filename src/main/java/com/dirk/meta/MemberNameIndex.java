@@ -0,0 +1,280 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.meta;
+
+import com.dirk.helper.RegisterListener;
+import org.javacord.api.entity.permission.Role;
+import org.javacord.api.entity.server.Server;
+import org.javacord.api.entity.user.User;
+import org.javacord.api.event.server.ServerLeaveEvent;
+import org.javacord.api.event.server.member.ServerMemberJoinEvent;
+import org.javacord.api.event.server.member.ServerMemberLeaveEvent;
+import org.javacord.api.event.server.role.RoleChangeNameEvent;
+import org.javacord.api.event.server.role.RoleCreateEvent;
+import org.javacord.api.event.server.role.RoleDeleteEvent;
+import org.javacord.api.event.user.UserChangeNameEvent;
+import org.javacord.api.event.user.UserChangeNicknameEvent;
+import org.javacord.api.listener.server.ServerLeaveListener;
+import org.javacord.api.listener.server.member.ServerMemberJoinListener;
+import org.javacord.api.listener.server.member.ServerMemberLeaveListener;
+import org.javacord.api.listener.server.role.RoleChangeNameListener;
+import org.javacord.api.listener.server.role.RoleCreateListener;
+import org.javacord.api.listener.server.role.RoleDeleteListener;
+import org.javacord.api.listener.user.UserChangeNameListener;
+import org.javacord.api.listener.user.UserChangeNicknameListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Looks up members by their display name and roles by their name without going through every member or role of
+ * the guild. The index of a guild is built the first time it is used and kept up to date from the guild events.
+ */
+@Component
+public class MemberNameIndex implements ServerMemberJoinListener, ServerMemberLeaveListener, UserChangeNicknameListener, UserChangeNameListener,
+        RoleCreateListener, RoleDeleteListener, RoleChangeNameListener, ServerLeaveListener, RegisterListener {
+    private final Map<Long, GuildNames> namesPerGuild = new ConcurrentHashMap<>();
+
+    /**
+     * Find the member with the given display name, a member with the exact name is preferred over a member
+     * of which only the casing differs
+     *
+     * @param server      the server to find the member in
+     * @param displayName the display name of the member
+     * @return the member or null when no member has the display name
+     */
+    public User findMemberByDisplayName(Server server, String displayName) {
+        if (displayName == null) {
+            return null;
+        }
+
+        User caseInsensitiveMatch = null;
+
+        for (Long memberSnowflake : getGuildNames(server).members.get(displayName)) {
+            User member = server.getMemberById(memberSnowflake).orElse(null);
+
+            if (member == null) {
+                continue;
+            }
+
+            String memberDisplayName = member.getDisplayName(server);
+
+            if (memberDisplayName.equals(displayName)) {
+                return member;
+            }
+
+            if (caseInsensitiveMatch == null && memberDisplayName.equalsIgnoreCase(displayName.trim())) {
+                caseInsensitiveMatch = member;
+            }
+        }
+
+        return caseInsensitiveMatch;
+    }
+
+    /**
+     * Find the role with the given name, a role with the exact name is preferred over a role
+     * of which only the casing differs
+     *
+     * @param server   the server to find the role in
+     * @param roleName the name of the role
+     * @return the role or null when no role has the name
+     */
+    public Role findRoleByName(Server server, String roleName) {
+        if (roleName == null) {
+            return null;
+        }
+
+        Role caseInsensitiveMatch = null;
+
+        for (Long roleSnowflake : getGuildNames(server).roles.get(roleName)) {
+            Role role = server.getRoleById(roleSnowflake).orElse(null);
+
+            if (role == null) {
+                continue;
+            }
+
+            if (role.getName().equals(roleName)) {
+                return role;
+            }
+
+            if (caseInsensitiveMatch == null && role.getName().equalsIgnoreCase(roleName.trim())) {
+                caseInsensitiveMatch = role;
+            }
+        }
+
+        return caseInsensitiveMatch;
+    }
+
+    @Override
+    public void onServerMemberJoin(ServerMemberJoinEvent event) {
+        GuildNames guildNames = namesPerGuild.get(event.getServer().getId());
+
+        if (guildNames != null) {
+            guildNames.members.put(event.getUser().getId(), event.getUser().getDisplayName(event.getServer()));
+        }
+    }
+
+    @Override
+    public void onServerMemberLeave(ServerMemberLeaveEvent event) {
+        GuildNames guildNames = namesPerGuild.get(event.getServer().getId());
+
+        if (guildNames != null) {
+            guildNames.members.remove(event.getUser().getId());
+        }
+    }
+
+    @Override
+    public void onUserChangeNickname(UserChangeNicknameEvent event) {
+        GuildNames guildNames = namesPerGuild.get(event.getServer().getId());
+
+        if (guildNames != null) {
+            guildNames.members.put(event.getUser().getId(), event.getNewNickname().orElse(event.getUser().getName()));
+        }
+    }
+
+    @Override
+    public void onUserChangeName(UserChangeNameEvent event) {
+        User user = event.getUser();
+
+        for (Server server : user.getMutualServers()) {
+            GuildNames guildNames = namesPerGuild.get(server.getId());
+
+            // The name is only the display name when the member has no nickname
+            if (guildNames != null && user.getNickname(server).isEmpty()) {
+                guildNames.members.put(user.getId(), event.getNewName());
+            }
+        }
+    }
+
+    @Override
+    public void onRoleCreate(RoleCreateEvent event) {
+        GuildNames guildNames = namesPerGuild.get(event.getServer().getId());
+
+        if (guildNames != null) {
+            guildNames.roles.put(event.getRole().getId(), event.getRole().getName());
+        }
+    }
+
+    @Override
+    public void onRoleDelete(RoleDeleteEvent event) {
+        GuildNames guildNames = namesPerGuild.get(event.getServer().getId());
+
+        if (guildNames != null) {
+            guildNames.roles.remove(event.getRole().getId());
+        }
+    }
+
+    @Override
+    public void onRoleChangeName(RoleChangeNameEvent event) {
+        GuildNames guildNames = namesPerGuild.get(event.getServer().getId());
+
+        if (guildNames != null) {
+            guildNames.roles.put(event.getRole().getId(), event.getNewName());
+        }
+    }
+
+    @Override
+    public void onServerLeave(ServerLeaveEvent event) {
+        namesPerGuild.remove(event.getServer().getId());
+    }
+
+    /**
+     * Get the names of the given guild, the names are indexed the first time the guild is used
+     *
+     * @param server the guild to get the names for
+     * @return the names of the guild
+     */
+    private GuildNames getGuildNames(Server server) {
+        return namesPerGuild.computeIfAbsent(server.getId(), serverSnowflake -> {
+            GuildNames guildNames = new GuildNames();
+
+            for (User member : server.getMembers()) {
+                guildNames.members.put(member.getId(), member.getDisplayName(server));
+            }
+
+            for (Role role : server.getRoles()) {
+                guildNames.roles.put(role.getId(), role.getName());
+            }
+
+            return guildNames;
+        });
+    }
+
+    /**
+     * The member and role names of a guild
+     */
+    private static class GuildNames {
+        private final NameIndex members = new NameIndex();
+        private final NameIndex roles = new NameIndex();
+    }
+
+    /**
+     * Maps case-normalized names to the snowflakes that have the name
+     */
+    private static class NameIndex {
+        private final Map<Long, String> nameBySnowflake = new HashMap<>();
+        private final Map<String, Set<Long>> snowflakesByName = new HashMap<>();
+
+        private synchronized void put(long snowflake, String name) {
+            remove(snowflake);
+
+            String normalizedName = normalize(name);
+
+            nameBySnowflake.put(snowflake, normalizedName);
+            snowflakesByName.computeIfAbsent(normalizedName, key -> new LinkedHashSet<>()).add(snowflake);
+        }
+
+        private synchronized void remove(long snowflake) {
+            String normalizedName = nameBySnowflake.remove(snowflake);
+
+            if (normalizedName != null) {
+                Set<Long> snowflakes = snowflakesByName.get(normalizedName);
+                snowflakes.remove(snowflake);
+
+                if (snowflakes.isEmpty()) {
+                    snowflakesByName.remove(normalizedName);
+                }
+            }
+        }
+
+        private synchronized List<Long> get(String name) {
+            Set<Long> snowflakes = snowflakesByName.get(normalize(name));
+
+            return snowflakes != null ? new ArrayList<>(snowflakes) : Collections.emptyList();
+        }
+
+        private static String normalize(String name) {
+            return name.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.meta;
+
+import com.dirk.models.tournament.RescheduleRequest;
+import com.dirk.models.tournament.StaffDropRequest;
+import com.dirk.repositories.RescheduleRequestRepository;
+import com.dirk.repositories.StaffDropRequestRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the snowflakes of the messages with a pending reschedule request or staff drop request in memory, so a
+ * reaction on any other message is ignored without going to the database.
+ */
+@Component
+public class PendingRequestIndex {
+    private final RescheduleRequestRepository rescheduleRequestRepository;
+    private final StaffDropRequestRepository staffDropRequestRepository;
+    private final Set<Long> rescheduleMessages = ConcurrentHashMap.newKeySet();
+    private final Set<Long> staffDropMessages = ConcurrentHashMap.newKeySet();
+    // Until the index is loaded every message has to be looked up in the database
+    private volatile boolean loaded = false;
+
+    @Autowired
+    public PendingRequestIndex(RescheduleRequestRepository rescheduleRequestRepository, StaffDropRequestRepository staffDropRequestRepository) {
+        this.rescheduleRequestRepository = rescheduleRequestRepository;
+        this.staffDropRequestRepository = staffDropRequestRepository;
+    }
+
+    /**
+     * Load the snowflakes of all stored requests
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPendingRequests() {
+        rescheduleRequestRepository.findAll().forEach(rescheduleRequest -> rescheduleMessages.add(rescheduleRequest.getMessageSnowflake()));
+        staffDropRequestRepository.findAll().forEach(staffDropRequest -> staffDropMessages.add(staffDropRequest.getMessageSnowflake()));
+
+        loaded = true;
+    }
+
+    /**
+     * Check if there may be a reschedule request for the given message
+     *
+     * @param messageSnowflake the snowflake of the message
+     * @return whether or not the message has to be looked up
+     */
+    public boolean isRescheduleRequest(long messageSnowflake) {
+        return !loaded || rescheduleMessages.contains(messageSnowflake);
+    }
+
+    /**
+     * Check if there may be a staff drop request for the given message
+     *
+     * @param messageSnowflake the snowflake of the message
+     * @return whether or not the message has to be looked up
+     */
+    public boolean isStaffDropRequest(long messageSnowflake) {
+        return !loaded || staffDropMessages.contains(messageSnowflake);
+    }
+
+    /**
+     * Get the reschedule request of the given message
+     *
+     * @param messageSnowflake the snowflake of the message
+     * @return the reschedule request
+     */
+    public Optional<RescheduleRequest> getRescheduleRequest(long messageSnowflake) {
+        return isRescheduleRequest(messageSnowflake) ? rescheduleRequestRepository.findById(messageSnowflake) : Optional.empty();
+    }
+
+    /**
+     * Get the staff drop request of the given message
+     *
+     * @param messageSnowflake the snowflake of the message
+     * @return the staff drop request
+     */
+    public Optional<StaffDropRequest> getStaffDropRequest(long messageSnowflake) {
+        return isStaffDropRequest(messageSnowflake) ? staffDropRequestRepository.findById(messageSnowflake) : Optional.empty();
+    }
+
+    /**
+     * Store the reschedule request
+     *
+     * @param rescheduleRequest the reschedule request to store
+     */
+    public void addRescheduleRequest(RescheduleRequest rescheduleRequest) {
+        rescheduleRequestRepository.save(rescheduleRequest);
+        rescheduleMessages.add(rescheduleRequest.getMessageSnowflake());
+    }
+
+    /**
+     * Store the staff drop request
+     *
+     * @param staffDropRequest the staff drop request to store
+     */
+    public void addStaffDropRequest(StaffDropRequest staffDropRequest) {
+        staffDropRequestRepository.save(staffDropRequest);
+        staffDropMessages.add(staffDropRequest.getMessageSnowflake());
+    }
+
+    /**
+     * Remove the reschedule request once it has been handled
+     *
+     * @param rescheduleRequest the reschedule request to remove
+     */
+    public void removeRescheduleRequest(RescheduleRequest rescheduleRequest) {
+        rescheduleRequestRepository.delete(rescheduleRequest);
+        rescheduleMessages.remove(rescheduleRequest.getMessageSnowflake());
+    }
+
+    /**
+     * Remove the reschedule requests and staff drop requests of which the match has already been played
+     */
+    @Scheduled(cron = "0 0 * * * *")
+    public void removeExpiredRequests() {
+        Date now = new Date();
+
+        List<RescheduleRequest> expiredRescheduleRequests = rescheduleRequestRepository.findAllByProposedDateBefore(now);
+        rescheduleRequestRepository.deleteAll(expiredRescheduleRequests);
+        expiredRescheduleRequests.forEach(rescheduleRequest -> rescheduleMessages.remove(rescheduleRequest.getMessageSnowflake()));
+
+        List<StaffDropRequest> expiredStaffDropRequests = staffDropRequestRepository.findAllByMatchDateBefore(now);
+        staffDropRequestRepository.deleteAll(expiredStaffDropRequests);
+        expiredStaffDropRequests.forEach(staffDropRequest -> staffDropMessages.remove(staffDropRequest.getMessageSnowflake()));
+    }
+}
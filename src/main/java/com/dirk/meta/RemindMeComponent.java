@@ -24,22 +24,174 @@
 
 package com.dirk.meta;
 
-import org.springframework.context.annotation.Bean;
+import com.dirk.DiscordConfiguration;
+import com.dirk.helper.EmbedHelper;
+import com.dirk.helper.Log;
+import com.dirk.models.entities.Reminder;
+import com.dirk.repositories.ReminderRepository;
+import org.javacord.api.exception.MissingPermissionsException;
+import org.javacord.api.exception.NotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Sends the reminders of the remindme command. Reminders are stored in the database so they survive a restart,
+ * only the reminders that are due within the horizon are kept in memory.
+ */
 @Component
 public class RemindMeComponent {
+    // Reminders that are due within this horizon are scheduled in memory
+    private static final Duration HORIZON = Duration.ofMinutes(10);
+    // A reminder that fails to send this many times is removed
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final ReminderRepository reminderRepository;
+    private final DiscordConfiguration discordConfiguration;
     private final ScheduledExecutorService scheduler;
+    private final Map<Long, ScheduledFuture<?>> scheduledReminders = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RemindMeComponent(ReminderRepository reminderRepository, DiscordConfiguration discordConfiguration) {
+        this.reminderRepository = reminderRepository;
+        this.discordConfiguration = discordConfiguration;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reminder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Store a new reminder and schedule it right away when it is due within the horizon
+     *
+     * @param userSnowflake the user to remind
+     * @param message       the message to send
+     * @param remindAt      when to send the message
+     */
+    public void addReminder(long userSnowflake, String message, Date remindAt) {
+        Reminder reminder = reminderRepository.save(new Reminder(userSnowflake, message, remindAt));
+
+        if (remindAt.toInstant().isBefore(Instant.now().plus(HORIZON))) {
+            schedule(reminder);
+        }
+    }
+
+    /**
+     * Schedule all stored reminders that are due within the horizon, this includes the reminders that
+     * should have been sent while the bot was offline
+     */
+    @Scheduled(fixedDelay = 5 * 60 * 1000)
+    public void loadDueReminders() {
+        Date until = Date.from(Instant.now().plus(HORIZON));
+        List<Reminder> dueReminders = reminderRepository.findTop100ByRemindAtBeforeAndIdGreaterThanOrderByIdAsc(until, 0L);
+
+        // Load the reminders a page at a time, a long downtime can leave a lot of them behind
+        while (!dueReminders.isEmpty()) {
+            for (Reminder reminder : dueReminders) {
+                schedule(reminder);
+            }
 
-    public RemindMeComponent() {
-        scheduler = Executors.newScheduledThreadPool(1);
+            long lastId = dueReminders.get(dueReminders.size() - 1).getId();
+            dueReminders = reminderRepository.findTop100ByRemindAtBeforeAndIdGreaterThanOrderByIdAsc(until, lastId);
+        }
     }
 
-    @Bean
-    public ScheduledExecutorService getScheduler() {
-        return this.scheduler;
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Schedule the given reminder unless it has been scheduled already
+     *
+     * @param reminder the reminder to schedule
+     */
+    private void schedule(Reminder reminder) {
+        long reminderId = reminder.getId();
+        long userSnowflake = reminder.getUserSnowflake();
+        String message = reminder.getMessage();
+        long delay = Math.max(0, Duration.between(Instant.now(), reminder.getRemindAt().toInstant()).toMillis());
+
+        scheduledReminders.computeIfAbsent(reminderId, id -> scheduler.schedule(() -> remind(reminderId, userSnowflake, message), delay, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Send the reminder to the user and remove it once it has been sent. The reminder stays scheduled until it has
+     * been removed, so loading the due reminders in the meantime doesn't send it twice. A reminder that couldn't be
+     * sent is tried again the next time the due reminders are loaded
+     *
+     * @param reminderId    the reminder to send
+     * @param userSnowflake the user to remind
+     * @param message       the message to send
+     */
+    private void remind(long reminderId, long userSnowflake, String message) {
+        try {
+            Reminder reminder = reminderRepository.findById(reminderId).orElse(null);
+
+            // The reminder was already sent by a schedule that was loaded before it got removed
+            if (reminder == null) {
+                scheduledReminders.remove(reminderId);
+                return;
+            }
+
+            discordConfiguration.getDiscordApi()
+                    .getUserById(userSnowflake)
+                    .thenCompose(user -> user.sendMessage(EmbedHelper.reminderEmbed(message)))
+                    .whenComplete((sentMessage, throwable) -> {
+                        try {
+                            if (throwable != null) {
+                                reminderFailed(reminder, throwable);
+                            } else {
+                                reminderRepository.deleteById(reminderId);
+                            }
+                        } catch (Exception ex) {
+                            Log.error("Unable to update reminder " + reminderId + ": " + ex.getMessage());
+                        } finally {
+                            scheduledReminders.remove(reminderId);
+                        }
+                    });
+        } catch (Exception ex) {
+            Log.error("Unable to send reminder " + reminderId + ": " + ex.getMessage());
+            scheduledReminders.remove(reminderId);
+        }
+    }
+
+    /**
+     * Keep track of a reminder that couldn't be sent. The reminder is removed right away when it can never be sent,
+     * such as when the user doesn't exist anymore or doesn't accept direct messages, and after too many attempts
+     *
+     * @param reminder  the reminder that couldn't be sent
+     * @param throwable the reason it couldn't be sent
+     */
+    private void reminderFailed(Reminder reminder, Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+        int attempts = reminder.getAttempts() + 1;
+
+        if (cause instanceof MissingPermissionsException || cause instanceof NotFoundException) {
+            Log.error("Removed reminder " + reminder.getId() + ", the user can't be sent a message: " + cause.getMessage());
+            reminderRepository.deleteById(reminder.getId());
+        } else if (attempts >= MAX_ATTEMPTS) {
+            Log.error("Removed reminder " + reminder.getId() + " after " + attempts + " failed attempts: " + cause.getMessage());
+            reminderRepository.deleteById(reminder.getId());
+        } else {
+            Log.error("Unable to send reminder " + reminder.getId() + ": " + cause.getMessage());
+            reminder.setAttempts(attempts);
+            reminderRepository.save(reminder);
+        }
     }
 }
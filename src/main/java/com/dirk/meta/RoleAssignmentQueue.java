@@ -0,0 +1,124 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.meta;
+
+import com.dirk.helper.Log;
+import org.javacord.api.entity.permission.Role;
+import org.javacord.api.entity.server.Server;
+import org.javacord.api.entity.user.User;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adds roles to members one request at a time per guild. Javacord delays requests that would hit the rate limit,
+ * waiting for every request keeps a burst of joins from queueing hundreds of requests that all run into the limit.
+ * The rate limit of adding roles is per guild, so a burst in one guild doesn't hold up the others.
+ */
+@Component
+public class RoleAssignmentQueue {
+    private static final long REQUEST_TIMEOUT_SECONDS = 30;
+    // The amount of guilds that can have a role assignment running at the same time
+    private static final int THREADS = 4;
+
+    private final ExecutorService executorService;
+    private final AtomicInteger queuedAssignments = new AtomicInteger();
+    // The last role assignment that is queued for every guild, the next one runs after it
+    private final Map<Long, CompletableFuture<Void>> lastAssignments = new ConcurrentHashMap<>();
+
+    public RoleAssignmentQueue() {
+        this.executorService = Executors.newFixedThreadPool(THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "role-assignment");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue adding the role to the member
+     *
+     * @param server the server of the member
+     * @param user   the member to add the role to
+     * @param role   the role to add
+     */
+    public void addRole(Server server, User user, Role role) {
+        long serverSnowflake = server.getId();
+
+        queuedAssignments.incrementAndGet();
+
+        CompletableFuture<Void> assignment = lastAssignments.compute(serverSnowflake, (snowflake, lastAssignment) -> {
+            CompletableFuture<Void> previous = lastAssignment != null ? lastAssignment.exceptionally(throwable -> null) : CompletableFuture.completedFuture(null);
+
+            return previous.thenRunAsync(() -> assignRole(server, user, role), executorService);
+        });
+
+        // Forget the guild once its queue is empty
+        assignment.whenComplete((result, throwable) -> lastAssignments.remove(serverSnowflake, assignment));
+    }
+
+    /**
+     * Add the role to the member and wait for the request to finish
+     *
+     * @param server the server of the member
+     * @param user   the member to add the role to
+     * @param role   the role to add
+     */
+    private void assignRole(Server server, User user, Role role) {
+        try {
+            // The member may have left or already received the role while waiting
+            if (server.getMemberById(user.getId()).isEmpty() || user.getRoles(server).contains(role)) {
+                return;
+            }
+
+            user.addRole(role).get(REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception ex) {
+            Log.error("Unable to add the role to \"" + user.getId() + "\" // \"" + user.getDiscriminatedName() + "\"");
+            Log.error(ex.getMessage());
+        } finally {
+            queuedAssignments.decrementAndGet();
+        }
+    }
+
+    /**
+     * Get the amount of role assignments that are waiting or running
+     *
+     * @return the amount of role assignments
+     */
+    public int getQueuedAssignments() {
+        return queuedAssignments.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdown();
+    }
+}
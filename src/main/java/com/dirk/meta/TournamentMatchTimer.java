@@ -25,116 +25,255 @@
 package com.dirk.meta;
 
 import com.dirk.DiscordConfiguration;
+import com.dirk.helper.Log;
 import com.dirk.helper.TournamentHelper;
+import com.dirk.helper.Transactions;
 import com.dirk.models.tournament.Match;
 import com.dirk.models.tournament.Tournament;
-import com.dirk.repositories.TournamentRepository;
+import com.dirk.models.tournament.embeddable.MatchId;
+import com.dirk.repositories.MatchRepository;
 import org.javacord.api.entity.channel.TextChannel;
+import org.javacord.api.entity.message.Message;
 import org.javacord.api.entity.server.Server;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
-import javax.transaction.Transactional;
+import javax.annotation.PreDestroy;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Sends the notification of a match 30 minutes before it starts. Every pending match has its own
+ * scheduled notification, these are loaded once at startup and replaced whenever a match changes.
+ */
 @Component
-@Transactional
 public class TournamentMatchTimer {
-    TournamentRepository tournamentRepository;
-    DiscordConfiguration discordConfiguration;
+    // Matches get a notification this long before they start
+    private static final Duration NOTIFICATION_WINDOW = Duration.ofMinutes(30);
+    // A notification that couldn't be sent is tried again after this delay, until the match starts
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(1);
+
+    private final MatchRepository matchRepository;
+    private final DiscordConfiguration discordConfiguration;
+    private final MemberNameIndex memberNameIndex;
+    private final ScheduledExecutorService scheduler;
+    private final Map<MatchId, ScheduledFuture<?>> scheduledNotifications = new ConcurrentHashMap<>();
 
     @Autowired
-    public TournamentMatchTimer(TournamentRepository tournamentRepository, DiscordConfiguration discordConfiguration) {
-        this.tournamentRepository = tournamentRepository;
+    public TournamentMatchTimer(MatchRepository matchRepository, DiscordConfiguration discordConfiguration, MemberNameIndex memberNameIndex) {
+        this.matchRepository = matchRepository;
         this.discordConfiguration = discordConfiguration;
+        this.memberNameIndex = memberNameIndex;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "match-notifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Schedule the notifications of all matches that haven't been notified yet
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleAllMatches() {
+        List<Match> pendingMatches = matchRepository.findPendingMatches(new Date());
+
+        for (Match match : pendingMatches) {
+            schedule(match);
+        }
+
+        Log.info("Scheduled the notifications of " + pendingMatches.size() + " matches");
     }
 
-    // Run every 5 minutes
-    // <second> <minute> <hour> <day-of-month> <month> <day-of-week> <year> <command>
-//    @Scheduled(cron = "*/5 * * * * *") // run every 5 seconds, testing purposes
-    @Scheduled(cron = "* */5 * * * *")
-    public void tournamentMatchTask() {
-        List<Tournament> allTournaments = (List<Tournament>) tournamentRepository.findAll();
-
-        for (Tournament tournament : allTournaments) {
-            List<Match> allMatches = tournament.getAllMatches();
-
-            for (Match match : allMatches) {
-                if (match.getDate().after(new Date()) && !match.isIgnored()) {
-                    Duration timeBetween = Duration.between(
-                            Instant.now(),
-                            match.getDate().toInstant()
-                    );
-
-                    // Match is within the next 30 minutes
-                    if (timeBetween.toMinutes() <= 30) {
-                        Server server = this.discordConfiguration.getDiscordApi().getServerById(tournament.getServerSnowflake()).orElse(null);
-
-                        // Check if the server exists
-                        if (server != null) {
-                            TextChannel textChannel = server.getTextChannelById(tournament.getMatchNotifierChannelSnowflake()).orElse(null);
-
-                            // Check if the text channel exists
-                            if (textChannel != null) {
-                                String finalMessage;
-
-                                if (tournament.getIsTeamTournament()) {
-                                    finalMessage = "Hello " +
-                                            TournamentHelper.getTeamAsDiscordHighlight(server, match.getPlayerOne()) +
-                                            " and " +
-                                            TournamentHelper.getTeamAsDiscordHighlight(server, match.getPlayerTwo()) + "!";
-                                } else {
-                                    finalMessage = "Hello " +
-                                            TournamentHelper.getUserAsDiscordHighlight(server, match.getPlayerOne()) +
-                                            " and " +
-                                            TournamentHelper.getUserAsDiscordHighlight(server, match.getPlayerTwo()) + "!";
-                                }
-
-                                finalMessage += " Your match will be starting in " + timeBetween.toMinutes() + " minutes.\n\n";
-
-                                List<Object> allReferees;
-                                List<Object> allStreamers;
-                                List<Object> allCommentators;
-
-                                String allRefereesString = null;
-                                String allStreamersString = null;
-                                String allCommentatorsString = null;
-
-                                if (match.getReferee() != null) {
-                                    allReferees = Collections.singletonList(match.getReferee());
-                                    allRefereesString = TournamentHelper.getUsersAsDiscordHighlights(server, allReferees);
-                                }
-
-                                if (match.getStreamer() != null) {
-                                    allStreamers = Collections.singletonList(match.getStreamer());
-                                    allStreamersString = TournamentHelper.getUsersAsDiscordHighlights(server, allStreamers);
-                                }
-
-                                if (match.getCommentator() != null) {
-                                    allCommentators = Collections.singletonList(match.getCommentator());
-                                    allCommentatorsString = TournamentHelper.getUsersAsDiscordHighlights(server, allCommentators);
-                                }
-
-                                finalMessage += "**Referee:** " + (allRefereesString != null ? allRefereesString : "") + "\n";
-                                finalMessage += "**Streamer:** " + (allStreamersString != null ? allStreamersString : "") + "\n";
-                                finalMessage += "**Commentator:** " + (allCommentatorsString != null ? allCommentatorsString : "");
-
-                                textChannel
-                                        .sendMessage(finalMessage);
-
-                                match.setIgnoreMatch(true);
-                            }
-                        }
-                    }
+    /**
+     * Schedule the notification of the given match, replacing the notification that was scheduled before.
+     * When called within a transaction the notification is scheduled once the transaction has been committed
+     *
+     * @param match the match to schedule the notification for
+     */
+    public void schedule(Match match) {
+        MatchId matchId = match.getMatchId();
+        Date date = match.getDate();
+        boolean ignored = match.isIgnored();
+
+        Transactions.runAfterCommit(() -> {
+            if (ignored || date == null || !date.after(new Date())) {
+                cancel(matchId);
+                return;
+            }
+
+            long delay = Math.max(0, Duration.between(Instant.now(), date.toInstant().minus(NOTIFICATION_WINDOW)).toMillis());
+
+            scheduledNotifications.compute(matchId, (id, scheduledNotification) -> {
+                if (scheduledNotification != null) {
+                    scheduledNotification.cancel(false);
                 }
+
+                return scheduler.schedule(() -> notifyMatch(matchId, date), delay, TimeUnit.MILLISECONDS);
+            });
+        });
+    }
+
+    /**
+     * Cancel the notification of the given match
+     *
+     * @param matchId the match to cancel the notification for
+     */
+    public void cancel(MatchId matchId) {
+        Transactions.runAfterCommit(() -> {
+            ScheduledFuture<?> scheduledNotification = scheduledNotifications.remove(matchId);
+
+            if (scheduledNotification != null) {
+                scheduledNotification.cancel(false);
             }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Send the notification of the match if it is still pending
+     *
+     * @param matchId       the match to send the notification for
+     * @param scheduledDate the date of the match when the notification was scheduled
+     */
+    private void notifyMatch(MatchId matchId, Date scheduledDate) {
+        // The notification is running, so it can't be cancelled anymore
+        scheduledNotifications.computeIfPresent(matchId, (id, scheduledNotification) -> scheduledNotification.getDelay(TimeUnit.MILLISECONDS) <= 0 ? null : scheduledNotification);
+
+        try {
+            Match match = matchRepository.findById(matchId).orElse(null);
+
+            // The match was removed, notified or moved in the meantime
+            if (match == null || match.isIgnored() || match.getDate() == null || match.getDate().getTime() != scheduledDate.getTime()) {
+                return;
+            }
+
+            CompletableFuture<Message> sentNotification = sendNotification(match);
+
+            if (sentNotification == null) {
+                retry(matchId, scheduledDate);
+                return;
+            }
+
+            // The match only counts as notified once Discord accepted the message
+            sentNotification.whenComplete((message, throwable) -> {
+                if (throwable != null) {
+                    Log.error("Unable to send the notification of match " + matchId.getMatchId() + ": " + throwable.getMessage());
+                    retry(matchId, scheduledDate);
+                    return;
+                }
+
+                try {
+                    match.setIgnoreMatch(true);
+                    matchRepository.save(match);
+                } catch (Exception ex) {
+                    Log.error("Unable to mark match " + matchId.getMatchId() + " as notified: " + ex.getMessage());
+                }
+            });
+        } catch (Exception ex) {
+            Log.error("Unable to send the notification of match " + matchId.getMatchId() + ": " + ex.getMessage());
+            retry(matchId, scheduledDate);
+        }
+    }
+
+    /**
+     * Try to send the notification of the match again in a moment, unless the match starts before then or another
+     * notification has been scheduled for it in the meantime
+     *
+     * @param matchId       the match to send the notification for
+     * @param scheduledDate the date of the match when the notification was scheduled
+     */
+    private void retry(MatchId matchId, Date scheduledDate) {
+        if (Instant.now().plus(RETRY_DELAY).isAfter(scheduledDate.toInstant())) {
+            return;
+        }
 
-            tournamentRepository.save(tournament);
+        scheduledNotifications.computeIfAbsent(matchId, id -> scheduler.schedule(() -> notifyMatch(matchId, scheduledDate), RETRY_DELAY.toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Send the notification of the match to the match notifier channel of the tournament
+     *
+     * @param match the match to send the notification for
+     * @return the notification that is being sent or null when the server or channel can't be found
+     */
+    private CompletableFuture<Message> sendNotification(Match match) {
+        Tournament tournament = match.getTournament();
+        Server server = this.discordConfiguration.getDiscordApi().getServerById(tournament.getServerSnowflake()).orElse(null);
+
+        // Check if the server exists
+        if (server == null) {
+            return null;
         }
+
+        TextChannel textChannel = server.getTextChannelById(tournament.getMatchNotifierChannelSnowflake()).orElse(null);
+
+        // Check if the text channel exists
+        if (textChannel == null) {
+            return null;
+        }
+
+        String finalMessage;
+
+        if (tournament.getIsTeamTournament()) {
+            finalMessage = "Hello " +
+                    TournamentHelper.getTeamAsDiscordHighlight(memberNameIndex, server, match.getPlayerOne()) +
+                    " and " +
+                    TournamentHelper.getTeamAsDiscordHighlight(memberNameIndex, server, match.getPlayerTwo()) + "!";
+        } else {
+            finalMessage = "Hello " +
+                    TournamentHelper.getUserAsDiscordHighlight(memberNameIndex, server, match.getPlayerOne()) +
+                    " and " +
+                    TournamentHelper.getUserAsDiscordHighlight(memberNameIndex, server, match.getPlayerTwo()) + "!";
+        }
+
+        finalMessage += " Your match will be starting in " + Duration.between(Instant.now(), match.getDate().toInstant()).toMinutes() + " minutes.\n\n";
+
+        List<Object> allReferees;
+        List<Object> allStreamers;
+        List<Object> allCommentators;
+
+        String allRefereesString = null;
+        String allStreamersString = null;
+        String allCommentatorsString = null;
+
+        if (match.getReferee() != null) {
+            allReferees = Collections.singletonList(match.getReferee());
+            allRefereesString = TournamentHelper.getUsersAsDiscordHighlights(memberNameIndex, server, allReferees);
+        }
+
+        if (match.getStreamer() != null) {
+            allStreamers = Collections.singletonList(match.getStreamer());
+            allStreamersString = TournamentHelper.getUsersAsDiscordHighlights(memberNameIndex, server, allStreamers);
+        }
+
+        if (match.getCommentator() != null) {
+            allCommentators = Collections.singletonList(match.getCommentator());
+            allCommentatorsString = TournamentHelper.getUsersAsDiscordHighlights(memberNameIndex, server, allCommentators);
+        }
+
+        finalMessage += "**Referee:** " + (allRefereesString != null ? allRefereesString : "") + "\n";
+        finalMessage += "**Streamer:** " + (allStreamersString != null ? allStreamersString : "") + "\n";
+        finalMessage += "**Commentator:** " + (allCommentatorsString != null ? allCommentatorsString : "");
+
+        return textChannel
+                .sendMessage(finalMessage);
     }
 }
@@ -0,0 +1,346 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.meta;
+
+import com.dirk.helper.DateFormats;
+import com.dirk.helper.EmbedHelper;
+import com.dirk.helper.Emoji;
+import com.dirk.helper.Log;
+import com.dirk.helper.TournamentHelper;
+import com.dirk.models.GoogleSpreadsheetAuthenticator;
+import com.dirk.models.SpreadsheetGateway;
+import com.dirk.models.tournament.RescheduleRequest;
+import com.dirk.models.tournament.SheetMatchRow;
+import com.dirk.models.tournament.StaffDropRequest;
+import com.dirk.models.tournament.Team;
+import com.dirk.models.tournament.Tournament;
+import com.dirk.repositories.TournamentRepository;
+import org.javacord.api.entity.message.Message;
+import org.javacord.api.entity.permission.Role;
+import org.javacord.api.entity.server.Server;
+import org.javacord.api.entity.user.User;
+import org.javacord.api.event.message.reaction.ReactionAddEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Handles the reactions on reschedule requests and staff drop requests. These talk to the spreadsheet,
+ * so they are called from the command executor instead of the Javacord event thread.
+ */
+@Component
+public class TournamentReactionHandler {
+    private final TournamentRepository tournamentRepository;
+    private final PendingRequestIndex pendingRequestIndex;
+    private final SpreadsheetGateway spreadsheetGateway;
+    private final TournamentSynchronizer tournamentSynchronizer;
+    private final MatchRowReader matchRowReader;
+    private final MatchLocks matchLocks;
+    private final MemberNameIndex memberNameIndex;
+    // Toggle to true if you want to accept reschedules from everyone
+    // Note: only use this for development reasons
+    private final Boolean DEVELOPMENT_TOGGLE = false;
+
+    @Autowired
+    public TournamentReactionHandler(TournamentRepository tournamentRepository, PendingRequestIndex pendingRequestIndex, SpreadsheetGateway spreadsheetGateway, TournamentSynchronizer tournamentSynchronizer, MatchRowReader matchRowReader, MatchLocks matchLocks, MemberNameIndex memberNameIndex) {
+        this.tournamentRepository = tournamentRepository;
+        this.pendingRequestIndex = pendingRequestIndex;
+        this.spreadsheetGateway = spreadsheetGateway;
+        this.tournamentSynchronizer = tournamentSynchronizer;
+        this.matchRowReader = matchRowReader;
+        this.matchLocks = matchLocks;
+        this.memberNameIndex = memberNameIndex;
+    }
+
+    /**
+     * Reschedule the match when the reaction was added by the opponent
+     *
+     * @param reaction          the reaction that was added
+     * @param reactionUser      the user that added the reaction
+     * @param rescheduleRequest the reschedule request the reaction was added to
+     */
+    @Transactional
+    public void acceptReschedule(ReactionAddEvent reaction, User reactionUser, RescheduleRequest rescheduleRequest) {
+        Server server = reaction.getServer().get();
+
+        Long opponent = rescheduleRequest.getOpponentSnowflake();
+        String matchId = rescheduleRequest.getMatchId();
+        String originalDate = DateFormats.RESCHEDULE_MESSAGE.format(DateFormats.toLocalDateTime(rescheduleRequest.getOriginalDate()));
+        LocalDateTime proposedDateTime = DateFormats.toLocalDateTime(rescheduleRequest.getProposedDate());
+        String proposedDate = DateFormats.RESCHEDULE_MESSAGE.format(proposedDateTime);
+
+        try {
+            Tournament existingTournament = tournamentRepository.getTournamentByServerSnowflake(server.getIdAsString());
+            boolean canReschedule = false;
+
+            // Tournament is a team tournament
+            if (existingTournament.getIsTeamTournament()) {
+                List<Team> allTeams = existingTournament.getAllTeams();
+                Role opponentRole = server.getRoleById(opponent).orElse(null);
+
+                if (opponentRole != null) {
+                    for (Team team : allTeams) {
+                        // Check for both team captain & team name
+                        if (team.getCaptain().equals(reactionUser.getDisplayName(server)) && opponentRole.getName().equals(team.getTeamId().getName())) {
+                            canReschedule = true;
+                        }
+                    }
+                }
+            }
+            // Tournament is a player vs player
+            else {
+                canReschedule = opponent.equals(reactionUser.getId());
+            }
+
+            // The reaction was send by the opponent
+            if (canReschedule || DEVELOPMENT_TOGGLE) {
+                String spreadsheetId = TournamentHelper.getSpreadsheetIdFromUrl(existingTournament.getSpreadsheet());
+
+                // Check if the tournament is properly setup
+                if (TournamentHelper.isTournamentProperlySetup(existingTournament)) {
+                    SheetMatchRow sheetMatchRow = matchRowReader.readMatchRow(existingTournament, matchId);
+
+                    // Check if the match still exists
+                    if (sheetMatchRow != null) {
+                        List<Object> allRefereesList = sheetMatchRow.getReferee() != null ? List.of(sheetMatchRow.getReferee()) : null;
+                        List<Object> allStreamersList = sheetMatchRow.getStreamer() != null ? List.of(sheetMatchRow.getStreamer()) : null;
+                        List<Object> allCommentatorsList = sheetMatchRow.getCommentator() != null ? List.of(sheetMatchRow.getCommentator()) : null;
+
+                        String playerOneDiscordTag;
+                        String playerTwoDiscordTag;
+
+                        if (existingTournament.getIsTeamTournament()) {
+                            playerOneDiscordTag = TournamentHelper.getTeamAsDiscordHighlight(memberNameIndex, server, sheetMatchRow.getPlayerOne());
+                            playerTwoDiscordTag = TournamentHelper.getTeamAsDiscordHighlight(memberNameIndex, server, sheetMatchRow.getPlayerTwo());
+                        } else {
+                            playerOneDiscordTag = TournamentHelper.getUserAsDiscordHighlight(memberNameIndex, server, sheetMatchRow.getPlayerOne());
+                            playerTwoDiscordTag = TournamentHelper.getUserAsDiscordHighlight(memberNameIndex, server, sheetMatchRow.getPlayerTwo());
+                        }
+
+                        String allRefereesString = TournamentHelper.getUsersAsDiscordHighlights(memberNameIndex, server, allRefereesList);
+                        String allStreamersString = TournamentHelper.getUsersAsDiscordHighlights(memberNameIndex, server, allStreamersList);
+                        String allCommentatorsString = TournamentHelper.getUsersAsDiscordHighlights(memberNameIndex, server, allCommentatorsList);
+
+                        // Update new time to sheet
+                        String dateRow = TournamentHelper.getRangeFromRow(existingTournament.getDateRow(), sheetMatchRow.getRowIndex());
+                        String timeRow = TournamentHelper.getRangeFromRow(existingTournament.getTimeRow(), sheetMatchRow.getRowIndex());
+
+                        String dateFromSpreadsheet = sheetMatchRow.getDate();
+                        String timeFromSpreadsheet = sheetMatchRow.getTime();
+
+                        // The spreadsheet doesn't list the year, so only the day and time are compared
+                        LocalDateTime dateTimeFromSpreadsheet = LocalDateTime
+                                .parse(dateFromSpreadsheet + " " + timeFromSpreadsheet, DateFormats.getSheetDateTimeFormatter(existingTournament.getDateFormat()))
+                                .withYear(proposedDateTime.getYear());
+
+                        // Ignore match reschedule if the new time is the same as the old time
+                        if (proposedDateTime.equals(dateTimeFromSpreadsheet)) {
+                            pendingRequestIndex.removeRescheduleRequest(rescheduleRequest);
+                            return;
+                        }
+
+                        // Update the date and time together so the sheet never holds half of the reschedule
+                        String newDate = DateFormats.getSheetDateFormatter(existingTournament.getDateFormat()).format(proposedDateTime);
+                        String newTime = DateFormats.SHEET_TIME.format(proposedDateTime);
+
+                        Map<String, String> newDateTime = new LinkedHashMap<>();
+                        newDateTime.put(dateRow, newDate);
+                        newDateTime.put(timeRow, newTime);
+
+                        spreadsheetGateway.updateDataOnSheet(spreadsheetId, existingTournament.getScheduleTab(), newDateTime);
+
+                        tournamentSynchronizer.applyMatchChange(existingTournament, sheetMatchRow, row -> {
+                            row.setDate(newDate);
+                            row.setTime(newTime);
+                        });
+                        pendingRequestIndex.removeRescheduleRequest(rescheduleRequest);
+
+                        String rescheduledMatch = "**Match " + matchId + " (" + playerOneDiscordTag + " vs " + playerTwoDiscordTag + ")** has been rescheduled from **" + originalDate + " UTC+0** to **" + proposedDate + " UTC+0**.";
+                        String staffOnMatch = "**__Referee:__** " + allRefereesString + "\n" +
+                                "**__Streamer:__** " + allStreamersString + "\n" +
+                                "**__Commentator:__** " + allCommentatorsString;
+
+                        reaction
+                                .getChannel()
+                                .sendMessage(rescheduledMatch);
+
+                        CompletableFuture<Message> sentMessage = server
+                                .getTextChannelById(existingTournament.getRescheduleNotifierChannelSnowflake()).get()
+                                .sendMessage(rescheduledMatch + "\n\n" + staffOnMatch +
+                                        "\n\nIf you are unable to participate for this match, click on the emojis to remove yourself from the match.\n\n" +
+                                        Emoji.CHECKERED_FLAG + ": referee \n" +
+                                        Emoji.CAMERA + ": streamer \n" +
+                                        Emoji.MICROPHONE + ": commentator");
+
+                        sentMessage.whenComplete((newMsg, throwable) -> {
+                            if (throwable != null) {
+                                Log.error("Unable to send the rescheduled match " + matchId + ": " + throwable.getMessage());
+                                return;
+                            }
+
+                            pendingRequestIndex.addStaffDropRequest(new StaffDropRequest(newMsg.getId(), matchId, rescheduleRequest.getProposedDate()));
+
+                            newMsg.addReaction(Emoji.CHECKERED_FLAG);
+                            newMsg.addReaction(Emoji.CAMERA);
+                            newMsg.addReaction(Emoji.MICROPHONE);
+                        });
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            reaction
+                    .getChannel()
+                    .sendMessage(EmbedHelper.genericErrorEmbed(GoogleSpreadsheetAuthenticator.parseException(ex), reaction.getApi().getYourself().getDiscriminatedName()));
+        }
+    }
+
+    /**
+     * Remove the user from the staff of the match
+     *
+     * @param reaction         the reaction that was added
+     * @param reactionUser     the user that added the reaction
+     * @param staffDropRequest the staff drop request the reaction was added to
+     */
+    @Transactional
+    public void dropStaff(ReactionAddEvent reaction, User reactionUser, StaffDropRequest staffDropRequest) {
+        Server server = reaction.getServer().get();
+
+        try {
+            String matchId = staffDropRequest.getMatchId();
+            Tournament existingTournament = tournamentRepository.getTournamentByServerSnowflake(server.getIdAsString());
+            String spreadsheetId = TournamentHelper.getSpreadsheetIdFromUrl(existingTournament.getSpreadsheet());
+
+            // Read and write the staff of the match while holding its lock, so a concurrent take or drop can't overwrite this one
+            Lock matchLock = matchLocks.getLock(spreadsheetId, matchId);
+            matchLock.lock();
+
+            try {
+                SheetMatchRow sheetMatchRow = matchRowReader.readMatchRow(existingTournament, matchId);
+
+                // The match was found
+                if (sheetMatchRow != null) {
+                    // Referee wants to get removed
+                    if (reaction.getEmoji().equalsEmoji(Emoji.CHECKERED_FLAG)) {
+                        String listedRefereesFromSheet = sheetMatchRow.getReferee();
+
+                        // Check if the referees from the sheet isn't null
+                        if (listedRefereesFromSheet != null) {
+                            List<String> splitReferees = new ArrayList<>(Arrays.asList(listedRefereesFromSheet.split("/")));
+
+                            // Check if there are actually referees in the list
+                            if (splitReferees.size() >= 1) {
+                                for (int j = 0; j < splitReferees.size(); j++) {
+                                    splitReferees.set(j, splitReferees.get(j).trim());
+                                }
+
+                                // Check if the referee is actually part of the match and remove them if so
+                                if (splitReferees.remove(reactionUser.getDisplayName(server))) {
+                                    String newReferees = String.join(" / ", splitReferees);
+                                    spreadsheetGateway.updateDataOnSheet(spreadsheetId, existingTournament.getScheduleTab(), TournamentHelper.getRangeFromRow(existingTournament.getRefereeRow(), sheetMatchRow.getRowIndex()), newReferees);
+
+                                    tournamentSynchronizer.applyMatchChange(existingTournament, sheetMatchRow, row -> row.setReferee(newReferees));
+
+                                    reaction
+                                            .getChannel()
+                                            .sendMessage(EmbedHelper.genericSuccessEmbed("Successfully removed yourself from **Match " + matchId + "** as a **Referee**.", reactionUser.getDiscriminatedName()));
+                                    return;
+                                }
+                            }
+                        }
+                    } else if (reaction.getEmoji().equalsEmoji(Emoji.CAMERA)) {
+                        String listedStreamersFromSheet = sheetMatchRow.getStreamer();
+
+                        // Check if the referees from the sheet isn't null
+                        if (listedStreamersFromSheet != null) {
+                            List<String> splitStreamers = new ArrayList<>(Arrays.asList(listedStreamersFromSheet.split("/")));
+
+                            // Check if there are actually streamers in the list
+                            if (splitStreamers.size() >= 1) {
+                                for (int j = 0; j < splitStreamers.size(); j++) {
+                                    splitStreamers.set(j, splitStreamers.get(j).trim());
+                                }
+
+                                // Check if the streamer is actually part of the match and remove them if so
+                                if (splitStreamers.remove(reactionUser.getDisplayName(server))) {
+                                    String newStreamers = String.join(" / ", splitStreamers);
+                                    spreadsheetGateway.updateDataOnSheet(spreadsheetId, existingTournament.getScheduleTab(), TournamentHelper.getRangeFromRow(existingTournament.getStreamerRow(), sheetMatchRow.getRowIndex()), newStreamers);
+
+                                    tournamentSynchronizer.applyMatchChange(existingTournament, sheetMatchRow, row -> row.setStreamer(newStreamers));
+
+                                    reaction
+                                            .getChannel()
+                                            .sendMessage(EmbedHelper.genericSuccessEmbed("Successfully removed yourself from **Match " + matchId + "** as a **Streamer**.", reactionUser.getDiscriminatedName()));
+                                    return;
+                                }
+                            }
+                        }
+                    } else if (reaction.getEmoji().equalsEmoji(Emoji.MICROPHONE)) {
+                        String listedCommentatorsFromSheet = sheetMatchRow.getCommentator();
+
+                        // Check if the referees from the sheet isn't null
+                        if (listedCommentatorsFromSheet != null) {
+                            List<String> splitCommentators = new ArrayList<>(Arrays.asList(listedCommentatorsFromSheet.split("/")));
+
+                            // Check if there are actually streamers in the list
+                            if (splitCommentators.size() >= 1) {
+                                for (int j = 0; j < splitCommentators.size(); j++) {
+                                    splitCommentators.set(j, splitCommentators.get(j).trim());
+                                }
+
+                                // Check if the streamer is actually part of the match and remove them if so
+                                if (splitCommentators.remove(reactionUser.getDisplayName(server))) {
+                                    String newCommentators = String.join(" / ", splitCommentators);
+                                    spreadsheetGateway.updateDataOnSheet(spreadsheetId, existingTournament.getScheduleTab(), TournamentHelper.getRangeFromRow(existingTournament.getCommentatorRow(), sheetMatchRow.getRowIndex()), newCommentators);
+
+                                    tournamentSynchronizer.applyMatchChange(existingTournament, sheetMatchRow, row -> row.setCommentator(newCommentators));
+
+                                    reaction
+                                            .getChannel()
+                                            .sendMessage(EmbedHelper.genericSuccessEmbed("Successfully removed yourself from **Match " + matchId + "** as a **Commentator**.", reactionUser.getDiscriminatedName()));
+                                    return;
+                                }
+                            }
+                        }
+                    }
+                }
+            } finally {
+                matchLock.unlock();
+            }
+        } catch (Exception ex) {
+            reaction
+                    .getChannel()
+                    .sendMessage(EmbedHelper.genericErrorEmbed(GoogleSpreadsheetAuthenticator.parseException(ex), reaction.getApi().getYourself().getDiscriminatedName()));
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dirk.meta;
+
+import com.dirk.helper.Log;
+import com.dirk.helper.TournamentHelper;
+import com.dirk.models.SheetsRequestScheduler;
+import com.dirk.models.SpreadsheetGateway;
+import com.dirk.models.tournament.SheetSchedule;
+import com.dirk.models.tournament.SynchronizationResult;
+import com.dirk.models.tournament.Tournament;
+import com.dirk.repositories.MatchRepository;
+import com.dirk.repositories.TournamentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Commands write their changes to the spreadsheet and only update the match they changed. The reconciler polls
+ * the spreadsheets in the background and only synchronizes a tournament when its spreadsheet has changed. Every
+ * tournament is polled on its own interval, which doubles every time nothing changed and drops back to the
+ * minimum when something did, when a match is about to start or when the spreadsheet was edited outside of the bot.
+ * A poll that fails is retried with a backoff, whatever the reason to poll the tournament was.
+ * The polls run on their own threads, so they never hold up the other scheduled tasks of the bot.
+ */
+@Component
+public class TournamentReconciler {
+    // The time in milliseconds between two checks for tournaments that are due
+    private static final long CHECK_INTERVAL = 15 * 1000;
+
+    private final TournamentSynchronizer tournamentSynchronizer;
+    private final TournamentRepository tournamentRepository;
+    private final MatchRepository matchRepository;
+    private final SpreadsheetGateway spreadsheetGateway;
+    private final long minimumInterval;
+    private final long maximumInterval;
+    private final long matchWindow;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, PollState> pollStates = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TournamentReconciler(TournamentSynchronizer tournamentSynchronizer,
+                                TournamentRepository tournamentRepository,
+                                MatchRepository matchRepository,
+                                SpreadsheetGateway spreadsheetGateway,
+                                @Value("${tournament.poll.minimum-interval:60000}") long minimumInterval,
+                                @Value("${tournament.poll.maximum-interval:1800000}") long maximumInterval,
+                                @Value("${tournament.poll.match-window:7200000}") long matchWindow,
+                                @Value("${tournament.poll.threads:2}") int threads) {
+        this.tournamentSynchronizer = tournamentSynchronizer;
+        this.tournamentRepository = tournamentRepository;
+        this.matchRepository = matchRepository;
+        this.spreadsheetGateway = spreadsheetGateway;
+        this.minimumInterval = minimumInterval;
+        this.maximumInterval = Math.max(minimumInterval, maximumInterval);
+        this.matchWindow = matchWindow;
+
+        this.scheduler = Executors.newScheduledThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "tournament-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start checking for tournaments that are due
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::pollTournaments, CHECK_INTERVAL, CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Poll the spreadsheets of the tournaments that are due
+     */
+    public void pollTournaments() {
+        try {
+            long now = System.currentTimeMillis();
+
+            Set<String> driftedTournaments = tournamentSynchronizer.getDriftedTournaments();
+            Set<String> upcomingTournaments = new HashSet<>(matchRepository.findServersWithPendingMatchesBetween(new Date(now), new Date(now + matchWindow)));
+            Set<String> allTournaments = new HashSet<>();
+
+            for (Tournament tournament : tournamentRepository.findAll()) {
+                String serverSnowflake = tournament.getServerSnowflake();
+                PollState pollState = pollStates.computeIfAbsent(serverSnowflake, snowflake -> new PollState(now));
+
+                allTournaments.add(serverSnowflake);
+
+                if (pollState.startPollIfDue(now, driftedTournaments.contains(serverSnowflake), upcomingTournaments.contains(serverSnowflake))) {
+                    scheduler.execute(() -> poll(tournament, pollState));
+                }
+            }
+
+            // Forget the tournaments that have been removed
+            pollStates.keySet().retainAll(allTournaments);
+        } catch (Exception ex) {
+            // An exception would stop the checks for good
+            Log.error("Unable to poll the tournaments: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Synchronize the tournament when its spreadsheet has changed and pick the next time to poll it. The schedule
+     * is read before the synchronization starts its transaction, so no database connection is held while waiting
+     * for Google Sheets
+     *
+     * @param tournament the tournament to poll
+     * @param pollState  the poll state of the tournament
+     */
+    private void poll(Tournament tournament, PollState pollState) {
+        String serverSnowflake = tournament.getServerSnowflake();
+        long now = System.currentTimeMillis();
+
+        try {
+            if (!TournamentHelper.isTournamentProperlySetup(tournament)) {
+                tournamentSynchronizer.forget(serverSnowflake);
+                pollState.pollSucceeded(now, false);
+                return;
+            }
+
+            // Commands go first when the quota is running out
+            SheetSchedule sheetSchedule = SheetsRequestScheduler.runInBackground(() -> TournamentHelper.getSheetSchedule(spreadsheetGateway, tournament));
+            boolean changed = false;
+
+            if (tournamentSynchronizer.needsSynchronization(serverSnowflake, sheetSchedule)) {
+                SynchronizationResult synchronizationResult = tournamentSynchronizer.synchronize(serverSnowflake, sheetSchedule);
+                changed = synchronizationResult != null && synchronizationResult.hasChanges();
+            }
+
+            pollState.pollSucceeded(now, changed);
+        } catch (Exception ex) {
+            Log.error("Unable to synchronize the tournament of " + serverSnowflake + ": " + ex.getMessage());
+            pollState.pollFailed(now);
+        }
+    }
+
+    /**
+     * When a tournament was last polled and when it is polled next. The state is shared by the check and the poll
+     * that runs on another thread
+     */
+    private class PollState {
+        private long interval = minimumInterval;
+        private long lastPoll;
+        private long nextPoll;
+        // The amount of polls in a row that failed and the time before which no new poll is started
+        private int failures = 0;
+        private long retryAfter = 0;
+        private boolean polling = false;
+
+        private PollState(long now) {
+            this.lastPoll = now;
+            this.nextPoll = now;
+        }
+
+        /**
+         * Mark the tournament as being polled when a poll is due
+         *
+         * @param now      the current time
+         * @param drifted  whether the spreadsheet was edited outside of the bot
+         * @param upcoming whether a match of the tournament is about to start
+         * @return true when the tournament has to be polled
+         */
+        private synchronized boolean startPollIfDue(long now, boolean drifted, boolean upcoming) {
+            if (polling || now < retryAfter) {
+                return false;
+            }
+
+            // A match is about to start, so its date and staff have to be up to date
+            boolean due = drifted || now >= nextPoll || (upcoming && now >= lastPoll + minimumInterval);
+
+            polling = due;
+            return due;
+        }
+
+        private synchronized void pollSucceeded(long now, boolean changed) {
+            interval = changed ? minimumInterval : Math.min(interval * 2, maximumInterval);
+            failures = 0;
+            retryAfter = 0;
+            lastPoll = now;
+            nextPoll = now + interval;
+            polling = false;
+        }
+
+        private synchronized void pollFailed(long now) {
+            failures++;
+            retryAfter = now + Math.min(minimumInterval << Math.min(failures - 1, 16), maximumInterval);
+            lastPoll = now;
+            nextPoll = retryAfter;
+            polling = false;
+        }
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.meta;
+
+import com.dirk.helper.DateFormats;
+import com.dirk.helper.Log;
+import com.dirk.helper.TournamentHelper;
+import com.dirk.helper.Transactions;
+import com.dirk.models.SpreadsheetGateway;
+import com.dirk.models.tournament.Match;
+import com.dirk.models.tournament.SheetMatchRow;
+import com.dirk.models.tournament.SheetSchedule;
+import com.dirk.models.tournament.SynchronizationResult;
+import com.dirk.models.tournament.Team;
+import com.dirk.models.tournament.Tournament;
+import com.dirk.models.tournament.embeddable.MatchId;
+import com.dirk.models.tournament.embeddable.TeamId;
+import com.dirk.repositories.TournamentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Synchronizes the matches and teams of a tournament with its spreadsheet. Only the rows that
+ * actually changed are inserted, updated or removed.
+ */
+@Component
+public class TournamentSynchronizer {
+    private final TournamentRepository tournamentRepository;
+    private final SpreadsheetGateway spreadsheetGateway;
+    private final MatchRowIndexCache matchRowIndexCache;
+    private final TournamentMatchTimer tournamentMatchTimer;
+    private final Set<String> driftedTournaments = ConcurrentHashMap.newKeySet();
+    private final Map<String, String> scheduleFingerprints = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TournamentSynchronizer(TournamentRepository tournamentRepository, SpreadsheetGateway spreadsheetGateway, MatchRowIndexCache matchRowIndexCache, TournamentMatchTimer tournamentMatchTimer) {
+        this.tournamentRepository = tournamentRepository;
+        this.spreadsheetGateway = spreadsheetGateway;
+        this.matchRowIndexCache = matchRowIndexCache;
+        this.tournamentMatchTimer = tournamentMatchTimer;
+    }
+
+    /**
+     * Read the spreadsheet of the tournament and save the differences to the database
+     *
+     * @param tournament the tournament to synchronize
+     * @return the changes that were made
+     * @throws IOException the error when something fails
+     */
+    @Transactional
+    public SynchronizationResult synchronize(Tournament tournament) throws IOException {
+        return synchronize(tournament, TournamentHelper.getSheetSchedule(spreadsheetGateway, tournament));
+    }
+
+    /**
+     * Save the differences between the given schedule and the database
+     *
+     * @param tournament    the tournament to synchronize
+     * @param sheetSchedule the schedule that was read from the spreadsheet
+     * @return the changes that were made
+     */
+    @Transactional
+    public SynchronizationResult synchronize(Tournament tournament, SheetSchedule sheetSchedule) {
+        SynchronizationResult synchronizationResult = new SynchronizationResult();
+        String serverSnowflake = tournament.getServerSnowflake();
+        String fingerprint = sheetSchedule.getFingerprint();
+
+        // Keep the tournament marked until the changes have been committed, so a failed synchronization is retried
+        driftedTournaments.add(serverSnowflake);
+
+        synchronizeMatches(tournament, sheetSchedule.getMatchRows(), synchronizationResult);
+        synchronizeTeams(tournament, sheetSchedule.getTeamRows(), synchronizationResult);
+
+        if (synchronizationResult.hasChanges()) {
+            tournamentRepository.save(tournament);
+        }
+
+        matchRowIndexCache.invalidate(serverSnowflake);
+
+        // The whole schedule was read again, so edits that were made outside of the bot have been picked up
+        Transactions.runAfterCommit(() -> {
+            scheduleFingerprints.put(serverSnowflake, fingerprint);
+            driftedTournaments.remove(serverSnowflake);
+        });
+
+        return synchronizationResult;
+    }
+
+    /**
+     * Save the differences between the given schedule and the database for the tournament of the given server. The
+     * tournament is loaded again within the transaction, so the schedule can be read before the transaction starts
+     *
+     * @param serverSnowflake the server of the tournament to synchronize
+     * @param sheetSchedule   the schedule that was read from the spreadsheet
+     * @return the changes that were made or null when the server has no tournament that is setup
+     */
+    @Transactional
+    public SynchronizationResult synchronize(String serverSnowflake, SheetSchedule sheetSchedule) {
+        Tournament tournament = tournamentRepository.getTournamentByServerSnowflake(serverSnowflake);
+
+        if (tournament == null || !TournamentHelper.isTournamentProperlySetup(tournament)) {
+            forget(serverSnowflake);
+            return null;
+        }
+
+        return synchronize(tournament, sheetSchedule);
+    }
+
+    /**
+     * Check if the given schedule differs from the one that was synchronized last, or if the tournament was
+     * edited outside of the bot since then
+     *
+     * @param serverSnowflake the server of the tournament
+     * @param sheetSchedule   the schedule that was read from the spreadsheet
+     * @return true when the tournament has to be synchronized
+     */
+    public boolean needsSynchronization(String serverSnowflake, SheetSchedule sheetSchedule) {
+        return driftedTournaments.contains(serverSnowflake) || !sheetSchedule.getFingerprint().equals(scheduleFingerprints.get(serverSnowflake));
+    }
+
+    /**
+     * Forget the last synchronization of the tournament of the given server, for when the tournament is gone
+     *
+     * @param serverSnowflake the server of the tournament
+     */
+    public void forget(String serverSnowflake) {
+        driftedTournaments.remove(serverSnowflake);
+        scheduleFingerprints.remove(serverSnowflake);
+    }
+
+    /**
+     * Apply a change that was just written to a row of the spreadsheet to the match, instead of reading the whole
+     * spreadsheet again. When the row that was read before the change doesn't match the stored match, the
+     * spreadsheet was edited by someone else and the tournament is marked to be synchronized in full
+     *
+     * @param tournament    the tournament of the match
+     * @param sheetMatchRow the row as it was read right before the change was written
+     * @param change        the change that was written to the row
+     */
+    @Transactional
+    public void applyMatchChange(Tournament tournament, SheetMatchRow sheetMatchRow, Consumer<SheetMatchRow> change) {
+        DateTimeFormatter sheetFormat = DateFormats.getSheetDateYearTimeFormatter(tournament.getDateFormat());
+        int currentYear = Calendar.getInstance().get(Calendar.YEAR);
+
+        Match match = tournament.getAllMatches()
+                .stream()
+                .filter(existingMatch -> existingMatch.getMatchId().getMatchId().equals(sheetMatchRow.getMatchId()))
+                .findFirst()
+                .orElse(null);
+
+        try {
+            // The match isn't stored yet or the row differs from the stored match
+            boolean drifted = match == null || updateMatch(match, sheetMatchRow, parseDate(sheetMatchRow, sheetFormat, currentYear));
+
+            if (drifted) {
+                driftedTournaments.add(tournament.getServerSnowflake());
+            }
+
+            if (match != null) {
+                change.accept(sheetMatchRow);
+
+                sheetMatchRow.setReferee(emptyToNull(sheetMatchRow.getReferee()));
+                sheetMatchRow.setStreamer(emptyToNull(sheetMatchRow.getStreamer()));
+                sheetMatchRow.setCommentator(emptyToNull(sheetMatchRow.getCommentator()));
+
+                boolean changed = updateMatch(match, sheetMatchRow, parseDate(sheetMatchRow, sheetFormat, currentYear));
+
+                // The match was also changed when it caught up with the row that was read before the change
+                if (drifted || changed) {
+                    tournamentMatchTimer.schedule(match);
+                    tournamentRepository.save(tournament);
+                }
+            }
+        } catch (DateTimeParseException ex) {
+            Log.error("Unable to read the date of match " + sheetMatchRow.getMatchId() + " of " + tournament.getServerSnowflake() + ": " + ex.getMessage());
+            driftedTournaments.add(tournament.getServerSnowflake());
+        }
+    }
+
+    /**
+     * Get the tournaments of which the spreadsheet was edited outside of the bot since their last synchronization
+     *
+     * @return the server snowflakes of the tournaments
+     */
+    public Set<String> getDriftedTournaments() {
+        return Set.copyOf(driftedTournaments);
+    }
+
+    /**
+     * Insert, update and remove the matches of the tournament
+     *
+     * @param tournament            the tournament to synchronize
+     * @param matchRows             the matches that were read from the spreadsheet
+     * @param synchronizationResult the result to keep track of the changes
+     */
+    private void synchronizeMatches(Tournament tournament, List<SheetMatchRow> matchRows, SynchronizationResult synchronizationResult) {
+        Map<MatchId, Match> existingMatches = new HashMap<>();
+        Set<MatchId> sheetMatchIds = new HashSet<>();
+
+        for (Match match : tournament.getAllMatches()) {
+            existingMatches.put(match.getMatchId(), match);
+        }
+
+        DateTimeFormatter sheetFormat = DateFormats.getSheetDateYearTimeFormatter(tournament.getDateFormat());
+        int currentYear = Calendar.getInstance().get(Calendar.YEAR);
+
+        for (SheetMatchRow sheetMatchRow : matchRows) {
+            // Skip empty rows in the schedule
+            if (sheetMatchRow.getMatchId() == null) {
+                continue;
+            }
+
+            MatchId matchId = new MatchId(tournament.getServerSnowflake(), sheetMatchRow.getMatchId());
+
+            if (!sheetMatchIds.add(matchId)) {
+                Log.error("The match " + sheetMatchRow.getMatchId() + " is listed more than once in the spreadsheet of " + tournament.getServerSnowflake());
+                continue;
+            }
+
+            Date date = parseDate(sheetMatchRow, sheetFormat, currentYear);
+            Match match = existingMatches.remove(matchId);
+
+            if (match == null) {
+                match = new Match();
+
+                match.setMatchId(matchId);
+                match.setTournament(tournament);
+                updateMatch(match, sheetMatchRow, date);
+
+                tournament.getAllMatches().add(match);
+                tournamentMatchTimer.schedule(match);
+                synchronizationResult.setInsertedMatches(synchronizationResult.getInsertedMatches() + 1);
+            } else if (updateMatch(match, sheetMatchRow, date)) {
+                tournamentMatchTimer.schedule(match);
+                synchronizationResult.setUpdatedMatches(synchronizationResult.getUpdatedMatches() + 1);
+            }
+        }
+
+        // Everything that is left was removed from the spreadsheet
+        if (!existingMatches.isEmpty()) {
+            tournament.getAllMatches().removeAll(existingMatches.values());
+            existingMatches.keySet().forEach(tournamentMatchTimer::cancel);
+            synchronizationResult.setDeletedMatches(existingMatches.size());
+        }
+    }
+
+    /**
+     * Insert, update and remove the teams of the tournament
+     *
+     * @param tournament            the tournament to synchronize
+     * @param teamRows              the teams that were read from the spreadsheet
+     * @param synchronizationResult the result to keep track of the changes
+     */
+    private void synchronizeTeams(Tournament tournament, List<List<Object>> teamRows, SynchronizationResult synchronizationResult) {
+        Map<TeamId, Team> existingTeams = new HashMap<>();
+
+        for (Team team : tournament.getAllTeams()) {
+            existingTeams.put(team.getTeamId(), team);
+        }
+
+        for (List<Object> teamRow : teamRows) {
+            // Skip rows without both a team name and a captain
+            if (teamRow == null || teamRow.size() < 2) {
+                continue;
+            }
+
+            TeamId teamId = new TeamId(tournament.getServerSnowflake(), teamRow.get(0).toString());
+            String captain = teamRow.get(1).toString();
+            Team team = existingTeams.remove(teamId);
+
+            if (team == null) {
+                team = new Team();
+
+                team.setTeamId(teamId);
+                team.setTournament(tournament);
+                team.setCaptain(captain);
+
+                tournament.getAllTeams().add(team);
+                synchronizationResult.setInsertedTeams(synchronizationResult.getInsertedTeams() + 1);
+            } else if (!Objects.equals(team.getCaptain(), captain)) {
+                team.setCaptain(captain);
+                synchronizationResult.setUpdatedTeams(synchronizationResult.getUpdatedTeams() + 1);
+            }
+        }
+
+        // Everything that is left was removed from the spreadsheet
+        if (!existingTeams.isEmpty()) {
+            tournament.getAllTeams().removeAll(existingTeams.values());
+            synchronizationResult.setDeletedTeams(existingTeams.size());
+        }
+    }
+
+    /**
+     * Parse the date and time of the spreadsheet row
+     *
+     * @param sheetMatchRow the row from the spreadsheet
+     * @param sheetFormat   the format of the date and time in the spreadsheet
+     * @param year          the year of the match
+     * @return the date of the match
+     */
+    private static Date parseDate(SheetMatchRow sheetMatchRow, DateTimeFormatter sheetFormat, int year) {
+        return DateFormats.toDate(LocalDateTime.parse(sheetMatchRow.getDate() + "/" + year + " " + sheetMatchRow.getTime(), sheetFormat));
+    }
+
+    /**
+     * An emptied cell is read back from the spreadsheet as no value at all
+     *
+     * @param value the value that was written
+     * @return the value or null when it is empty
+     */
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Copy the values of the spreadsheet row to the match
+     *
+     * @param match         the match to update
+     * @param sheetMatchRow the row from the spreadsheet
+     * @param date          the parsed date of the row
+     * @return whether or not anything changed
+     */
+    private static boolean updateMatch(Match match, SheetMatchRow sheetMatchRow, Date date) {
+        boolean dateChanged = match.getDate() == null || match.getDate().getTime() != date.getTime();
+        boolean changed = dateChanged ||
+                !Objects.equals(match.getPlayerOne(), sheetMatchRow.getPlayerOne()) ||
+                !Objects.equals(match.getPlayerTwo(), sheetMatchRow.getPlayerTwo()) ||
+                !Objects.equals(match.getReferee(), sheetMatchRow.getReferee()) ||
+                !Objects.equals(match.getStreamer(), sheetMatchRow.getStreamer()) ||
+                !Objects.equals(match.getCommentator(), sheetMatchRow.getCommentator()) ||
+                !Objects.equals(match.getRowIndex(), sheetMatchRow.getRowIndex());
+
+        if (!changed) {
+            return false;
+        }
+
+        // A rescheduled match has to be notified again
+        if (dateChanged) {
+            match.setDate(date);
+            match.setIgnoreMatch(false);
+        }
+
+        match.setPlayerOne(sheetMatchRow.getPlayerOne());
+        match.setPlayerTwo(sheetMatchRow.getPlayerTwo());
+        match.setReferee(sheetMatchRow.getReferee());
+        match.setStreamer(sheetMatchRow.getStreamer());
+        match.setCommentator(sheetMatchRow.getCommentator());
+        match.setRowIndex(sheetMatchRow.getRowIndex());
+
+        return true;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dirk.models;
+
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesResponse;
+import com.google.api.services.sheets.v4.model.UpdateValuesResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves the ranges that were read a moment ago from a {@link SheetRangeCache} and only passes the other reads on
+ * to the wrapped gateway. Every write invalidates the cached ranges of its tab
+ */
+public class CachingSpreadsheetGateway implements SpreadsheetGateway {
+    private final SpreadsheetGateway spreadsheetGateway;
+    private final SheetRangeCache sheetRangeCache;
+
+    public CachingSpreadsheetGateway(SpreadsheetGateway spreadsheetGateway, SheetRangeCache sheetRangeCache) {
+        this.spreadsheetGateway = spreadsheetGateway;
+        this.sheetRangeCache = sheetRangeCache;
+    }
+
+    /**
+     * Get data from the given range, a range that was read a moment ago is served from the cache.
+     * The returned data is shared with the cache and must not be modified
+     *
+     * @param spreadsheetId the spreadsheet to get the data from
+     * @param tab           the tab to get the data from
+     * @param range         the range to get the data from
+     * @return the data from the given range
+     * @throws IOException the error when something fails
+     */
+    @Override
+    public List<List<Object>> getDataFromRange(String spreadsheetId, String tab, String range) throws IOException {
+        SheetRangeCache.CachedRange cachedRange = sheetRangeCache.get(spreadsheetId, tab, range);
+
+        if (cachedRange != null) {
+            return cachedRange.getValues();
+        }
+
+        long generation = sheetRangeCache.getGeneration(spreadsheetId, tab);
+        List<List<Object>> values = spreadsheetGateway.getDataFromRange(spreadsheetId, tab, range);
+
+        sheetRangeCache.put(spreadsheetId, tab, range, values, generation);
+
+        return values;
+    }
+
+    /**
+     * Get data from all the given ranges in a single request, only the ranges that aren't cached are requested.
+     * The returned data is shared with the cache and must not be modified
+     *
+     * @param spreadsheetId the spreadsheet to get the data from
+     * @param tab           the tab to get the data from
+     * @param ranges        the ranges to get the data from
+     * @return the data of every range, in the same order as the given ranges
+     * @throws IOException the error when something fails
+     */
+    @Override
+    public List<List<List<Object>>> getDataFromRanges(String spreadsheetId, String tab, List<String> ranges) throws IOException {
+        List<List<List<Object>>> allValues = new ArrayList<>();
+        List<Integer> missingIndexes = new ArrayList<>();
+        List<String> missingRanges = new ArrayList<>();
+
+        for (int i = 0; i < ranges.size(); i++) {
+            SheetRangeCache.CachedRange cachedRange = sheetRangeCache.get(spreadsheetId, tab, ranges.get(i));
+
+            if (cachedRange != null) {
+                allValues.add(cachedRange.getValues());
+            } else {
+                allValues.add(null);
+                missingIndexes.add(i);
+                missingRanges.add(ranges.get(i));
+            }
+        }
+
+        // Every range was cached
+        if (missingIndexes.isEmpty()) {
+            return allValues;
+        }
+
+        long generation = sheetRangeCache.getGeneration(spreadsheetId, tab);
+        List<List<List<Object>>> missingValues = spreadsheetGateway.getDataFromRanges(spreadsheetId, tab, missingRanges);
+
+        for (int i = 0; i < missingIndexes.size(); i++) {
+            int index = missingIndexes.get(i);
+            List<List<Object>> values = missingValues.get(i);
+
+            allValues.set(index, values);
+            sheetRangeCache.put(spreadsheetId, tab, ranges.get(index), values, generation);
+        }
+
+        return allValues;
+    }
+
+    @Override
+    public UpdateValuesResponse updateDataOnSheet(String spreadsheetId, String tab, String range, String value) throws IOException {
+        try {
+            return spreadsheetGateway.updateDataOnSheet(spreadsheetId, tab, range, value);
+        } finally {
+            sheetRangeCache.invalidate(spreadsheetId, tab);
+        }
+    }
+
+    @Override
+    public BatchUpdateValuesResponse updateDataOnSheet(String spreadsheetId, String tab, Map<String, String> valuePerRange) throws IOException {
+        try {
+            return spreadsheetGateway.updateDataOnSheet(spreadsheetId, tab, valuePerRange);
+        } finally {
+            sheetRangeCache.invalidate(spreadsheetId, tab);
+        }
+    }
+
+    /**
+     * Get the cache that holds the recently read ranges
+     *
+     * @return the cache
+     */
+    public SheetRangeCache getSheetRangeCache() {
+        return sheetRangeCache;
+    }
+}
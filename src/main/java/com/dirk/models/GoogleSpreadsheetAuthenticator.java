@@ -39,48 +39,28 @@ import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.client.util.store.FileDataStoreFactory;
 import com.google.api.services.sheets.v4.Sheets;
 import com.google.api.services.sheets.v4.SheetsScopes;
+import com.google.api.services.sheets.v4.model.BatchGetValuesResponse;
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesRequest;
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesResponse;
 import com.google.api.services.sheets.v4.model.UpdateValuesResponse;
 import com.google.api.services.sheets.v4.model.ValueRange;
 
 import java.io.*;
 import java.security.GeneralSecurityException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
-public class GoogleSpreadsheetAuthenticator {
-    private final Sheets service;
-    private String spreadsheetId;
-
-    public GoogleSpreadsheetAuthenticator() throws IOException, GeneralSecurityException {
-        InputStream credentialsFile = DirkApplication.class.getClassLoader().getResourceAsStream("credentials.json");
-        if (credentialsFile == null) {
-            throw new FileNotFoundException("credentials.json not found");
-        }
-
-        JsonFactory jsonFactory = JacksonFactory.getDefaultInstance();
-        GoogleClientSecrets clientSecrets = GoogleClientSecrets.load(jsonFactory, new InputStreamReader(credentialsFile));
-        NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
-        List<String> scopes = Collections.singletonList(SheetsScopes.SPREADSHEETS);
-        String tokenDirectoryPath = "tokens";
-
-        GoogleAuthorizationCodeFlow flow = new GoogleAuthorizationCodeFlow.Builder(
-                httpTransport, jsonFactory, clientSecrets, scopes)
-                .setDataStoreFactory(new FileDataStoreFactory(new File(tokenDirectoryPath)))
-                .setAccessType("offline")
-                .build();
-
-        LocalServerReceiver receiver = new LocalServerReceiver.Builder().setPort(7777).build();
-        Credential credentials = new AuthorizationCodeInstalledApp(flow, receiver).authorize("user");
-
-        this.service = new Sheets.Builder(httpTransport, JacksonFactory.getDefaultInstance(), credentials)
-                .setApplicationName("DirkBot reschedule")
-                .build();
-    }
+/**
+ * Reads and writes the spreadsheets through the Google Sheets API. Every call is a request to the API, the cache
+ * and the quota are handled by the gateways that wrap this one
+ */
+public class GoogleSpreadsheetAuthenticator implements SpreadsheetGateway {
+    private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
+    private static final String TOKEN_DIRECTORY_PATH = "tokens";
 
-    public GoogleSpreadsheetAuthenticator(String spreadsheetId) throws IOException, GeneralSecurityException {
-        this();
-        this.spreadsheetId = spreadsheetId;
-    }
+    private volatile Sheets service;
 
     /**
      * Create a message for when an exception occurs
@@ -104,6 +84,10 @@ public class GoogleSpreadsheetAuthenticator {
                             "Make sure the spreadsheet url looks like this: " +
                             "`https://docs.google.com/spreadsheets/d/1yN-vwlhBEpdRJzSDRYM4IToLaXulLRrW_LYT-Hitd64/edit#gid=193799805`";
                     break;
+                case 429:
+                    errorMessage = "Google Sheets is receiving too many requests right now. \n\n" +
+                            "Try again in a minute.";
+                    break;
                 default:
                     errorMessage = "Unknown error, contact Wesley#2772 (GoogleJsonResponseException): " + ex.getMessage();
                     break;
@@ -117,40 +101,49 @@ public class GoogleSpreadsheetAuthenticator {
         return errorMessage;
     }
 
-    /**
-     * Change the spreadsheet
-     *
-     * @param spreadsheetId the spreadsheet to change to
-     */
-    public void setSpreadsheetId(String spreadsheetId) {
-        this.spreadsheetId = spreadsheetId;
+    @Override
+    public List<List<Object>> getDataFromRange(String spreadsheetId, String tab, String range) throws IOException {
+        ValueRange response = getService().spreadsheets().values()
+                .get(spreadsheetId, tab + "!" + range)
+                .execute();
+
+        return response.getValues();
     }
 
-    /**
-     * Get data from the given range
-     *
-     * @param range the range to get the data from
-     * @return the data from the given range
-     * @throws IOException the error when something fails
-     */
-    public List<List<Object>> getDataFromRange(String tab, String range) throws IOException {
-        ValueRange response = this.service.spreadsheets().values()
-                .get(this.spreadsheetId, tab + "!" + range)
+    @Override
+    public List<List<List<Object>>> getDataFromRanges(String spreadsheetId, String tab, List<String> ranges) throws IOException {
+        List<String> tabRanges = new ArrayList<>();
+
+        for (String range : ranges) {
+            tabRanges.add(tab + "!" + range);
+        }
+
+        BatchGetValuesResponse response = getService().spreadsheets().values()
+                .batchGet(spreadsheetId)
+                .setRanges(tabRanges)
                 .execute();
 
-        return response.getValues();
+        List<List<List<Object>>> allValues = new ArrayList<>();
+
+        for (ValueRange valueRange : response.getValueRanges()) {
+            allValues.add(valueRange.getValues());
+        }
+
+        return allValues;
     }
 
     /**
      * Update data on the spreadsheet
      *
-     * @param tab   the tab to change
-     * @param range the range to change
-     * @param value the new value of the range
+     * @param spreadsheetId the spreadsheet to change
+     * @param tab           the tab to change
+     * @param range         the range to change
+     * @param value         the new value of the range
      * @return the updated value
      * @throws IOException the error when something fails
      */
-    public UpdateValuesResponse updateDataOnSheet(String tab, String range, String value) throws IOException {
+    @Override
+    public UpdateValuesResponse updateDataOnSheet(String spreadsheetId, String tab, String range, String value) throws IOException {
         List<List<Object>> values = Collections.singletonList(
                 Collections.singletonList(
                         value
@@ -160,9 +153,99 @@ public class GoogleSpreadsheetAuthenticator {
         ValueRange body = new ValueRange()
                 .setValues(values);
 
-        return this.service.spreadsheets().values()
-                .update(this.spreadsheetId, tab + "!" + range, body)
+        return getService().spreadsheets().values()
+                .update(spreadsheetId, tab + "!" + range, body)
                 .setValueInputOption("USER_ENTERED")
                 .execute();
     }
+
+    /**
+     * Update several ranges on the spreadsheet in a single request
+     *
+     * @param spreadsheetId the spreadsheet to change
+     * @param tab           the tab to change
+     * @param valuePerRange the new value for each range to change
+     * @return the updated values
+     * @throws IOException the error when something fails
+     */
+    @Override
+    public BatchUpdateValuesResponse updateDataOnSheet(String spreadsheetId, String tab, Map<String, String> valuePerRange) throws IOException {
+        List<ValueRange> data = new ArrayList<>();
+
+        for (Map.Entry<String, String> rangeValue : valuePerRange.entrySet()) {
+            data.add(new ValueRange()
+                    .setRange(tab + "!" + rangeValue.getKey())
+                    .setValues(Collections.singletonList(
+                            Collections.singletonList(
+                                    rangeValue.getValue()
+                            )
+                    )));
+        }
+
+        BatchUpdateValuesRequest body = new BatchUpdateValuesRequest()
+                .setValueInputOption("USER_ENTERED")
+                .setData(data);
+
+        return getService().spreadsheets().values()
+                .batchUpdate(spreadsheetId, body)
+                .execute();
+    }
+
+    /**
+     * Get the Sheets service, the service is created once and shared by every spreadsheet.
+     * The credential refreshes its own access token whenever it expires
+     *
+     * @return the Sheets service
+     * @throws IOException the error when something fails
+     */
+    private Sheets getService() throws IOException {
+        Sheets currentService = this.service;
+
+        if (currentService == null) {
+            synchronized (this) {
+                if (this.service == null) {
+                    try {
+                        this.service = createService();
+                    } catch (GeneralSecurityException ex) {
+                        throw new IOException("Unable to create the Google Sheets service", ex);
+                    }
+                }
+
+                currentService = this.service;
+            }
+        }
+
+        return currentService;
+    }
+
+    /**
+     * Authorize with Google and create the Sheets service
+     *
+     * @return the Sheets service
+     * @throws IOException              the error when something fails
+     * @throws GeneralSecurityException the error when something fails
+     */
+    private static Sheets createService() throws IOException, GeneralSecurityException {
+        InputStream credentialsFile = DirkApplication.class.getClassLoader().getResourceAsStream("credentials.json");
+        if (credentialsFile == null) {
+            throw new FileNotFoundException("credentials.json not found");
+        }
+
+        GoogleClientSecrets clientSecrets = GoogleClientSecrets.load(JSON_FACTORY, new InputStreamReader(credentialsFile));
+        NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+        List<String> scopes = Collections.singletonList(SheetsScopes.SPREADSHEETS);
+
+        GoogleAuthorizationCodeFlow flow = new GoogleAuthorizationCodeFlow.Builder(
+                httpTransport, JSON_FACTORY, clientSecrets, scopes)
+                .setDataStoreFactory(new FileDataStoreFactory(new File(TOKEN_DIRECTORY_PATH)))
+                .setAccessType("offline")
+                .build();
+
+        LocalServerReceiver receiver = new LocalServerReceiver.Builder().setPort(7777).build();
+        Credential credentials = new AuthorizationCodeInstalledApp(flow, receiver).authorize("user");
+
+        return new Sheets.Builder(httpTransport, JSON_FACTORY, credentials)
+                .setApplicationName("DirkBot reschedule")
+                .build();
+    }
 }
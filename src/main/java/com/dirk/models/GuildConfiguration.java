@@ -0,0 +1,52 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.models;
+
+import lombok.Getter;
+
+/**
+ * The join and leave settings of a guild, only holds snowflakes and text so it can be cached
+ */
+@Getter
+public class GuildConfiguration {
+    private final Long trafficChannelSnowflake;
+    private final boolean showJoining;
+    private final boolean showLeaving;
+    private final String joinMessage;
+    private final Long joinRoleSnowflake;
+    private final Long verifiedRoleSnowflake;
+    private final Long verificationChannelSnowflake;
+
+    public GuildConfiguration(Long trafficChannelSnowflake, boolean showJoining, boolean showLeaving, String joinMessage,
+                              Long joinRoleSnowflake, Long verifiedRoleSnowflake, Long verificationChannelSnowflake) {
+        this.trafficChannelSnowflake = trafficChannelSnowflake;
+        this.showJoining = showJoining;
+        this.showLeaving = showLeaving;
+        this.joinMessage = joinMessage;
+        this.joinRoleSnowflake = joinRoleSnowflake;
+        this.verifiedRoleSnowflake = verifiedRoleSnowflake;
+        this.verificationChannelSnowflake = verificationChannelSnowflake;
+    }
+}
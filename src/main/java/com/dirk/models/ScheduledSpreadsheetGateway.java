@@ -0,0 +1,74 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dirk.models;
+
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesResponse;
+import com.google.api.services.sheets.v4.model.UpdateValuesResponse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Passes every request on to the wrapped gateway through a {@link SheetsRequestScheduler}, so the requests are
+ * spread over the quota and retried when they are rejected
+ */
+public class ScheduledSpreadsheetGateway implements SpreadsheetGateway {
+    private final SpreadsheetGateway spreadsheetGateway;
+    private final SheetsRequestScheduler requestScheduler;
+
+    public ScheduledSpreadsheetGateway(SpreadsheetGateway spreadsheetGateway, SheetsRequestScheduler requestScheduler) {
+        this.spreadsheetGateway = spreadsheetGateway;
+        this.requestScheduler = requestScheduler;
+    }
+
+    @Override
+    public List<List<Object>> getDataFromRange(String spreadsheetId, String tab, String range) throws IOException {
+        return requestScheduler.execute(spreadsheetId, () -> spreadsheetGateway.getDataFromRange(spreadsheetId, tab, range));
+    }
+
+    @Override
+    public List<List<List<Object>>> getDataFromRanges(String spreadsheetId, String tab, List<String> ranges) throws IOException {
+        return requestScheduler.execute(spreadsheetId, () -> spreadsheetGateway.getDataFromRanges(spreadsheetId, tab, ranges));
+    }
+
+    @Override
+    public UpdateValuesResponse updateDataOnSheet(String spreadsheetId, String tab, String range, String value) throws IOException {
+        return requestScheduler.execute(spreadsheetId, () -> spreadsheetGateway.updateDataOnSheet(spreadsheetId, tab, range, value));
+    }
+
+    @Override
+    public BatchUpdateValuesResponse updateDataOnSheet(String spreadsheetId, String tab, Map<String, String> valuePerRange) throws IOException {
+        return requestScheduler.execute(spreadsheetId, () -> spreadsheetGateway.updateDataOnSheet(spreadsheetId, tab, valuePerRange));
+    }
+
+    /**
+     * Get the scheduler that spreads the requests over the quota
+     *
+     * @return the scheduler
+     */
+    public SheetsRequestScheduler getRequestScheduler() {
+        return requestScheduler;
+    }
+}
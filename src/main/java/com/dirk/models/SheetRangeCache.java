@@ -0,0 +1,170 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.models;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache for the values of spreadsheet ranges. Values are kept for a short time only, the least
+ * recently used range is evicted once the cache is full. Every tab has a generation that changes whenever the
+ * tab is written to, values that were read before a write are never cached after it.
+ */
+public class SheetRangeCache {
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LinkedHashMap<String, CachedRange> cachedRanges;
+    private final Map<String, Long> generationPerTab = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public SheetRangeCache(long ttlMillis, int maxEntries) {
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.maxEntries = maxEntries;
+        this.cachedRanges = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedRange> eldest) {
+                if (size() > SheetRangeCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get the cached values of the range
+     *
+     * @param spreadsheetId the spreadsheet of the range
+     * @param tab           the tab of the range
+     * @param range         the range
+     * @return the cached values or null when the range isn't cached or has expired
+     */
+    public synchronized CachedRange get(String spreadsheetId, String tab, String range) {
+        String key = getKey(spreadsheetId, tab, range);
+        CachedRange cachedRange = cachedRanges.get(key);
+
+        if (cachedRange != null && System.nanoTime() - cachedRange.cachedAt > ttlNanos) {
+            cachedRanges.remove(key);
+            cachedRange = null;
+        }
+
+        if (cachedRange != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+
+        return cachedRange;
+    }
+
+    /**
+     * Get the generation of the tab, this has to be read before the values are requested from the spreadsheet
+     *
+     * @param spreadsheetId the spreadsheet of the tab
+     * @param tab           the tab
+     * @return the generation of the tab
+     */
+    public synchronized long getGeneration(String spreadsheetId, String tab) {
+        return generationPerTab.getOrDefault(getKey(spreadsheetId, tab, ""), 0L);
+    }
+
+    /**
+     * Cache the values of the range, unless the tab was written to since the values were requested
+     *
+     * @param spreadsheetId the spreadsheet of the range
+     * @param tab           the tab of the range
+     * @param range         the range
+     * @param values        the values of the range
+     * @param generation    the generation of the tab from before the values were requested
+     */
+    public synchronized void put(String spreadsheetId, String tab, String range, List<List<Object>> values, long generation) {
+        if (maxEntries > 0 && generation == getGeneration(spreadsheetId, tab)) {
+            cachedRanges.put(getKey(spreadsheetId, tab, range), new CachedRange(values, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Remove all cached ranges of the tab. Ranges can overlap, so a write to a tab invalidates every range of it
+     *
+     * @param spreadsheetId the spreadsheet that was changed
+     * @param tab           the tab that was changed
+     */
+    public synchronized void invalidate(String spreadsheetId, String tab) {
+        String prefix = getKey(spreadsheetId, tab, "");
+
+        // Reads that are still running return the values from before the write
+        generationPerTab.merge(prefix, 1L, Long::sum);
+        Iterator<String> keys = cachedRanges.keySet().iterator();
+
+        while (keys.hasNext()) {
+            if (keys.next().startsWith(prefix)) {
+                keys.remove();
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public synchronized int getSize() {
+        return cachedRanges.size();
+    }
+
+    private static String getKey(String spreadsheetId, String tab, String range) {
+        return spreadsheetId + "/" + tab + "!" + range;
+    }
+
+    public static class CachedRange {
+        private final List<List<Object>> values;
+        private final long cachedAt;
+
+        private CachedRange(List<List<Object>> values, long cachedAt) {
+            this.values = values;
+            this.cachedAt = cachedAt;
+        }
+
+        public List<List<Object>> getValues() {
+            return values;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.models;
+
+import com.google.api.client.http.HttpResponseException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Spreads the requests to the Sheets API over the quota. Every request takes a token from the bucket of the project
+ * and from the bucket of its spreadsheet, requests wait in line while there are no tokens left. Interactive requests
+ * are always let through before background requests. A request that is rejected because of the quota or a server
+ * error is retried with an exponential backoff.
+ */
+public class SheetsRequestScheduler {
+    // The priority of the requests of the current thread, requests are interactive unless said otherwise
+    private static final ThreadLocal<RequestPriority> CURRENT_PRIORITY = ThreadLocal.withInitial(() -> RequestPriority.INTERACTIVE);
+    // The time between two removals of the buckets of the spreadsheets that haven't been used for a while
+    private static final long PRUNE_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final int spreadsheetRequestsPerMinute;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition tokensChanged = lock.newCondition();
+    private final TokenBucket projectBucket;
+    private final Map<String, TokenBucket> spreadsheetBuckets = new HashMap<>();
+    private final TreeSet<Ticket> waitingTickets = new TreeSet<>(Comparator
+            .comparing((Ticket ticket) -> ticket.priority)
+            .thenComparingLong(ticket -> ticket.sequence));
+    private long nextSequence = 0;
+    private long nextPruneAt = System.nanoTime() + PRUNE_INTERVAL_NANOS;
+
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong peakQueueDepth = new AtomicLong();
+
+    public SheetsRequestScheduler(int projectRequestsPerMinute, int spreadsheetRequestsPerMinute, int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+        this.projectBucket = new TokenBucket(projectRequestsPerMinute);
+        this.spreadsheetRequestsPerMinute = spreadsheetRequestsPerMinute;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Run the task with all of its requests to the Sheets API as background requests
+     *
+     * @param task the task to run
+     * @param <T>  the result of the task
+     * @return the result of the task
+     * @throws IOException the error when something fails
+     */
+    public static <T> T runInBackground(SheetsRequest<T> task) throws IOException {
+        RequestPriority previousPriority = CURRENT_PRIORITY.get();
+        CURRENT_PRIORITY.set(RequestPriority.BACKGROUND);
+
+        try {
+            return task.execute();
+        } finally {
+            CURRENT_PRIORITY.set(previousPriority);
+        }
+    }
+
+    /**
+     * Wait for a token and execute the request, a request that is rejected because of the quota or a server
+     * error is retried
+     *
+     * @param spreadsheetId the spreadsheet the request is made for
+     * @param request       the request to execute
+     * @param <T>           the response of the request
+     * @return the response of the request
+     * @throws IOException the error when the request keeps failing or fails for any other reason
+     */
+    public <T> T execute(String spreadsheetId, SheetsRequest<T> request) throws IOException {
+        RequestPriority priority = CURRENT_PRIORITY.get();
+
+        for (int attempt = 1; ; attempt++) {
+            acquire(spreadsheetId, priority);
+
+            try {
+                return request.execute();
+            } catch (HttpResponseException ex) {
+                if (!isRetryable(ex.getStatusCode()) || attempt >= maxAttempts) {
+                    throw ex;
+                }
+
+                // Every request counts towards the same quota, so none of them are let through for now
+                if (ex.getStatusCode() == 429) {
+                    lock.lock();
+
+                    try {
+                        projectBucket.drain();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+
+                retries.incrementAndGet();
+                sleep(getBackoff(attempt));
+            }
+        }
+    }
+
+    /**
+     * Get the amount of requests that are waiting for a token
+     *
+     * @return the amount of waiting requests
+     */
+    public int getQueueDepth() {
+        lock.lock();
+
+        try {
+            return waitingTickets.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the highest amount of requests that were waiting at the same time since the last reset
+     *
+     * @param reset whether to reset the peak afterwards
+     * @return the highest amount of waiting requests
+     */
+    public long getPeakQueueDepth(boolean reset) {
+        return reset ? peakQueueDepth.getAndSet(getQueueDepth()) : peakQueueDepth.get();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * Wait in line until the request is allowed to take a token from the bucket of the project and the spreadsheet
+     *
+     * @param spreadsheetId the spreadsheet the request is made for
+     * @param priority      the priority of the request
+     * @throws InterruptedIOException the error when the thread is interrupted while waiting
+     */
+    private void acquire(String spreadsheetId, RequestPriority priority) throws InterruptedIOException {
+        lock.lock();
+
+        try {
+            Ticket ticket = new Ticket(spreadsheetId, priority, nextSequence++);
+
+            if (System.nanoTime() - nextPruneAt >= 0) {
+                pruneBuckets();
+            }
+
+            TokenBucket spreadsheetBucket = spreadsheetBuckets.computeIfAbsent(spreadsheetId, id -> new TokenBucket(spreadsheetRequestsPerMinute));
+
+            waitingTickets.add(ticket);
+            peakQueueDepth.accumulateAndGet(waitingTickets.size(), Math::max);
+
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+
+                    if (mayProceed(ticket, now)) {
+                        projectBucket.take();
+                        spreadsheetBucket.take();
+                        return;
+                    }
+
+                    long waitNanos = Math.max(projectBucket.nanosUntilToken(now), spreadsheetBucket.nanosUntilToken(now));
+                    tokensChanged.awaitNanos(Math.max(waitNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the Sheets API quota");
+            } finally {
+                waitingTickets.remove(ticket);
+                tokensChanged.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the buckets that have filled up again and that no request is waiting for. A full bucket is the same
+     * as a new one, so only the spreadsheets that were used within the last minute are kept. Only called while
+     * holding the lock
+     */
+    private void pruneBuckets() {
+        long now = System.nanoTime();
+        Set<String> waitingSpreadsheets = new HashSet<>();
+
+        for (Ticket waitingTicket : waitingTickets) {
+            waitingSpreadsheets.add(waitingTicket.spreadsheetId);
+        }
+
+        spreadsheetBuckets.entrySet().removeIf(bucket -> !waitingSpreadsheets.contains(bucket.getKey()) && bucket.getValue().isFull(now));
+        nextPruneAt = now + PRUNE_INTERVAL_NANOS;
+    }
+
+    /**
+     * Check if the ticket is allowed to take a token, which is when there are tokens left and every ticket before
+     * it in line is still waiting for its own spreadsheet
+     *
+     * @param ticket the ticket that is waiting
+     * @param now    the current time
+     * @return whether the ticket is allowed to take a token
+     */
+    private boolean mayProceed(Ticket ticket, long now) {
+        if (!projectBucket.hasToken(now)) {
+            return false;
+        }
+
+        for (Ticket waitingTicket : waitingTickets) {
+            boolean hasToken = spreadsheetBuckets.get(waitingTicket.spreadsheetId).hasToken(now);
+
+            if (waitingTicket == ticket) {
+                return hasToken;
+            }
+
+            // A ticket before this one is able to go first
+            if (hasToken) {
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Get the time to wait before the next attempt, the time doubles every attempt and is randomized so failed
+     * requests don't all come back at the same moment
+     *
+     * @param attempt the attempt that failed
+     * @return the time to wait in milliseconds
+     */
+    private long getBackoff(int attempt) {
+        long backoff = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    private static boolean isRetryable(int statusCode) {
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry a Sheets API request");
+        }
+    }
+
+    @FunctionalInterface
+    public interface SheetsRequest<T> {
+        T execute() throws IOException;
+    }
+
+    public enum RequestPriority {
+        INTERACTIVE,
+        BACKGROUND
+    }
+
+    /**
+     * A request that is waiting in line
+     */
+    private static class Ticket {
+        private final String spreadsheetId;
+        private final RequestPriority priority;
+        private final long sequence;
+
+        private Ticket(String spreadsheetId, RequestPriority priority, long sequence) {
+            this.spreadsheetId = spreadsheetId;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Holds at most a minute worth of requests and is refilled continuously. Only used while holding the lock
+     */
+    private static class TokenBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt;
+
+        private TokenBucket(int requestsPerMinute) {
+            this.capacity = Math.max(1, requestsPerMinute);
+            this.tokensPerNano = capacity / TimeUnit.MINUTES.toNanos(1);
+            this.tokens = capacity;
+            this.refilledAt = System.nanoTime();
+        }
+
+        private boolean hasToken(long now) {
+            refill(now);
+
+            return tokens >= 1;
+        }
+
+        private boolean isFull(long now) {
+            refill(now);
+
+            return tokens >= capacity;
+        }
+
+        private void take() {
+            tokens -= 1;
+        }
+
+        private void drain() {
+            tokens = Math.min(tokens, 0);
+        }
+
+        private long nanosUntilToken(long now) {
+            refill(now);
+
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+    }
+}
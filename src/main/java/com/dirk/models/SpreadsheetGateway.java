@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.models;
+
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesResponse;
+import com.google.api.services.sheets.v4.model.UpdateValuesResponse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the values of a spreadsheet. Ranges are given in A1 notation without the tab, such as
+ * {@code A2:A} or {@code B5}, and the values of a range are returned row by row with the trailing empty
+ * cells and rows left out.
+ */
+public interface SpreadsheetGateway {
+    /**
+     * Get data from the given range. The returned data must not be modified
+     *
+     * @param spreadsheetId the spreadsheet to get the data from
+     * @param tab           the tab to get the data from
+     * @param range         the range to get the data from
+     * @return the data from the given range or null when the range is empty
+     * @throws IOException the error when something fails
+     */
+    List<List<Object>> getDataFromRange(String spreadsheetId, String tab, String range) throws IOException;
+
+    /**
+     * Get data from all the given ranges in a single request. The returned data must not be modified
+     *
+     * @param spreadsheetId the spreadsheet to get the data from
+     * @param tab           the tab to get the data from
+     * @param ranges        the ranges to get the data from
+     * @return the data of every range, in the same order as the given ranges
+     * @throws IOException the error when something fails
+     */
+    List<List<List<Object>>> getDataFromRanges(String spreadsheetId, String tab, List<String> ranges) throws IOException;
+
+    /**
+     * Update data on the spreadsheet
+     *
+     * @param spreadsheetId the spreadsheet to change
+     * @param tab           the tab to change
+     * @param range         the range to change
+     * @param value         the new value of the range
+     * @return the updated value
+     * @throws IOException the error when something fails
+     */
+    UpdateValuesResponse updateDataOnSheet(String spreadsheetId, String tab, String range, String value) throws IOException;
+
+    /**
+     * Update several ranges on the spreadsheet in a single request
+     *
+     * @param spreadsheetId the spreadsheet to change
+     * @param tab           the tab to change
+     * @param valuePerRange the new value for each range to change
+     * @return the updated values
+     * @throws IOException the error when something fails
+     */
+    BatchUpdateValuesResponse updateDataOnSheet(String spreadsheetId, String tab, Map<String, String> valuePerRange) throws IOException;
+}
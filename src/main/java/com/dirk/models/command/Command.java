@@ -37,6 +37,7 @@ public abstract class Command {
     protected String description;
     protected String group;
     protected List<CommandArgument> commandArguments = new ArrayList<>();
+    protected List<String> aliases = new ArrayList<>();
     protected Boolean requiresAdmin;
     protected Boolean requiresBotOwner;
     protected Boolean guildOnly;
@@ -95,6 +96,14 @@ public abstract class Command {
         this.commandArguments.add(commandArguments);
     }
 
+    public List<String> getAliases() {
+        return aliases;
+    }
+
+    public void addAlias(String alias) {
+        this.aliases.add(alias);
+    }
+
     public Boolean getRequiresAdmin() {
         return requiresAdmin;
     }
@@ -129,7 +138,13 @@ public abstract class Command {
         StringBuilder arguments;
 
         mainMessage.append(discordCommandPrefix).append(commandName).append("`\n")
-                .append("**Group:** `").append(group).append("`").append("\n")
+                .append("**Group:** `").append(group).append("`").append("\n");
+
+        if (!this.aliases.isEmpty()) {
+            mainMessage.append("**Aliases:** `").append(String.join("`, `", this.aliases)).append("`\n");
+        }
+
+        mainMessage
                 .append(description).append("\n\n")
                 .append("**Format:** `").append(discordCommandPrefix).append(commandName);
 
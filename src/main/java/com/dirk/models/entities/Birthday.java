@@ -28,13 +28,20 @@ import com.dirk.models.entities.embeddables.BirthdayId;
 
 import javax.persistence.EmbeddedId;
 import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.util.Calendar;
 import java.util.Date;
 
 @Entity
+@Table(indexes = @Index(name = "idx_birthday_month_day", columnList = "birthdayMonth, birthdayDay"))
 public class Birthday {
     @EmbeddedId
     private BirthdayId birthdayId;
     private Date birthday;
+    // Derived from the birthday so the birthdays of a day can be looked up through the index
+    private Integer birthdayMonth;
+    private Integer birthdayDay;
 
     public Birthday() {
     }
@@ -53,5 +60,24 @@ public class Birthday {
 
     public void setBirthday(Date birthday) {
         this.birthday = birthday;
+
+        if (birthday != null) {
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTime(birthday);
+
+            this.birthdayMonth = calendar.get(Calendar.MONTH) + 1;
+            this.birthdayDay = calendar.get(Calendar.DAY_OF_MONTH);
+        } else {
+            this.birthdayMonth = null;
+            this.birthdayDay = null;
+        }
+    }
+
+    public Integer getBirthdayMonth() {
+        return birthdayMonth;
+    }
+
+    public Integer getBirthdayDay() {
+        return birthdayDay;
     }
 }
@@ -30,13 +30,16 @@ import lombok.Setter;
 
 import javax.persistence.EmbeddedId;
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
 import javax.persistence.MapsId;
+import javax.persistence.Table;
 import java.util.Date;
 
 @Getter
 @Setter
 @Entity(name = "tournament_match")
+@Table(indexes = @Index(name = "idx_tournament_match_date", columnList = "date"))
 public class Match {
     @EmbeddedId
     private MatchId matchId;
@@ -52,6 +55,7 @@ public class Match {
     private String commentator;
     private Date date;
     private Boolean ignoreMatch;
+    private Integer rowIndex;
 
     public Match() {
     }
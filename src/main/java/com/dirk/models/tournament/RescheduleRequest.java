@@ -0,0 +1,62 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.models.tournament;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.util.Date;
+
+/**
+ * A reschedule that is waiting for the opponent to accept it, stored by the snowflake of the message the opponent reacts to
+ */
+@Getter
+@Setter
+@Entity(name = "tournament_reschedule_request")
+@Table(indexes = @Index(name = "idx_tournament_reschedule_request_proposed_date", columnList = "proposedDate"))
+public class RescheduleRequest {
+    @Id
+    private Long messageSnowflake;
+
+    private String matchId;
+    private Long opponentSnowflake;
+    private Date originalDate;
+    private Date proposedDate;
+
+    public RescheduleRequest() {
+    }
+
+    public RescheduleRequest(Long messageSnowflake, String matchId, Long opponentSnowflake, Date originalDate, Date proposedDate) {
+        this.messageSnowflake = messageSnowflake;
+        this.matchId = matchId;
+        this.opponentSnowflake = opponentSnowflake;
+        this.originalDate = originalDate;
+        this.proposedDate = proposedDate;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.models.tournament;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * All matches and teams read from the spreadsheet of a tournament
+ */
+@Getter
+@Setter
+public class SheetSchedule {
+    private List<SheetMatchRow> matchRows = new ArrayList<>();
+    private List<List<Object>> teamRows = new ArrayList<>();
+
+    public SheetSchedule() {
+    }
+
+    /**
+     * Get a hash of all values of the schedule, the hash only changes when any of the values changes
+     *
+     * @return the hash of the schedule
+     */
+    public String getFingerprint() {
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        for (SheetMatchRow matchRow : matchRows) {
+            update(digest, matchRow.getMatchId());
+            update(digest, matchRow.getDate());
+            update(digest, matchRow.getTime());
+            update(digest, matchRow.getPlayerOne());
+            update(digest, matchRow.getPlayerTwo());
+            update(digest, matchRow.getReferee());
+            update(digest, matchRow.getStreamer());
+            update(digest, matchRow.getCommentator());
+        }
+
+        for (List<Object> teamRow : teamRows) {
+            for (Object cell : teamRow) {
+                update(digest, cell != null ? cell.toString() : null);
+            }
+
+            // Separate the rows, they don't all have the same amount of cells
+            digest.update((byte) 1);
+        }
+
+        return new BigInteger(1, digest.digest()).toString(16);
+    }
+
+    /**
+     * Add the value to the hash, followed by a separator so a value moving to the next cell changes the hash
+     *
+     * @param digest the hash to add the value to
+     * @param value  the value to add
+     */
+    private static void update(MessageDigest digest, String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        digest.update((byte) 0);
+    }
+}
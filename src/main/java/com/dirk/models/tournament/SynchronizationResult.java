@@ -0,0 +1,55 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.models.tournament;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The changes that were made to the database while synchronizing a tournament
+ */
+@Getter
+@Setter
+public class SynchronizationResult {
+    private int insertedMatches;
+    private int updatedMatches;
+    private int deletedMatches;
+    private int insertedTeams;
+    private int updatedTeams;
+    private int deletedTeams;
+
+    public SynchronizationResult() {
+    }
+
+    public boolean hasChanges() {
+        return insertedMatches + updatedMatches + deletedMatches + insertedTeams + updatedTeams + deletedTeams > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "**Matches:** " + insertedMatches + " added, " + updatedMatches + " updated, " + deletedMatches + " removed\n" +
+                "**Teams:** " + insertedTeams + " added, " + updatedTeams + " updated, " + deletedTeams + " removed";
+    }
+}
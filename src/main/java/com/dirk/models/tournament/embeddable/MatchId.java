@@ -36,6 +36,11 @@ public class MatchId implements Serializable {
     public MatchId() {
     }
 
+    public MatchId(String serverSnowflake, String matchId) {
+        this.serverSnowflake = serverSnowflake;
+        this.matchId = matchId;
+    }
+
     public String getServerSnowflake() {
         return serverSnowflake;
     }
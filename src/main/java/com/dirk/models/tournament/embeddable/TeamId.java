@@ -36,6 +36,11 @@ public class TeamId implements Serializable {
     public TeamId() {
     }
 
+    public TeamId(String serverSnowflake, String name) {
+        this.serverSnowflake = serverSnowflake;
+        this.name = name;
+    }
+
     public String getServerSnowflake() {
         return serverSnowflake;
     }
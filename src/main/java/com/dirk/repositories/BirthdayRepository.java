@@ -28,6 +28,11 @@ import com.dirk.models.entities.Birthday;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface BirthdayRepository extends CrudRepository<Birthday, Integer> {
+    List<Birthday> findAllByBirthdayMonthAndBirthdayDay(Integer birthdayMonth, Integer birthdayDay);
+
+    List<Birthday> findAllByBirthdayMonthIsNull();
 }
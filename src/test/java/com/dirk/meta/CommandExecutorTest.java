@@ -0,0 +1,155 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dirk.meta;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommandExecutorTest {
+    private static final long GUILD = 1;
+    private static final long OTHER_GUILD = 2;
+
+    private CommandExecutor commandExecutor;
+
+    @AfterEach
+    void tearDown() {
+        commandExecutor.shutdown();
+    }
+
+    @Test
+    void runsTheTasksOfALaneInOrder() throws InterruptedException {
+        commandExecutor = new CommandExecutor(4, 500, 100, false);
+        List<Integer> ranTasks = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> expectedTasks = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            int task = i;
+
+            expectedTasks.add(task);
+            assertTrue(commandExecutor.submit(GUILD, () -> ranTasks.add(task)));
+        }
+
+        awaitEmpty();
+
+        assertEquals(expectedTasks, ranTasks);
+    }
+
+    @Test
+    void rejectsTasksWhenTheLaneIsFull() throws InterruptedException {
+        commandExecutor = new CommandExecutor(4, 500, 2, false);
+        CountDownLatch release = new CountDownLatch(1);
+
+        assertTrue(commandExecutor.submit(GUILD, () -> await(release)));
+        assertTrue(commandExecutor.submit(GUILD, () -> {
+        }));
+        assertFalse(commandExecutor.submit(GUILD, () -> {
+        }));
+
+        // Other guilds have their own lane
+        assertTrue(commandExecutor.submit(OTHER_GUILD, () -> {
+        }));
+
+        release.countDown();
+        awaitEmpty();
+
+        assertTrue(commandExecutor.submit(GUILD, () -> {
+        }));
+        awaitEmpty();
+    }
+
+    @Test
+    void rejectsTasksWhenTheExecutorIsFull() throws InterruptedException {
+        commandExecutor = new CommandExecutor(4, 2, 25, false);
+        CountDownLatch release = new CountDownLatch(1);
+
+        assertTrue(commandExecutor.submit(GUILD, () -> await(release)));
+        assertTrue(commandExecutor.submit(OTHER_GUILD, () -> await(release)));
+        assertFalse(commandExecutor.submit(3, () -> {
+        }));
+        assertEquals(2, commandExecutor.getQueuedCommands());
+
+        release.countDown();
+        awaitEmpty();
+    }
+
+    @Test
+    void keepsRunningTheLaneAfterAFailedTask() throws InterruptedException {
+        commandExecutor = new CommandExecutor(4, 500, 25, false);
+        CountDownLatch ran = new CountDownLatch(1);
+
+        assertTrue(commandExecutor.submit(GUILD, () -> {
+            throw new IllegalStateException("Failed on purpose");
+        }));
+        assertTrue(commandExecutor.submit(GUILD, ran::countDown));
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        awaitEmpty();
+    }
+
+    @Test
+    void releasesTheLaneWhenTheExecutorRejectsTheTask() throws InterruptedException {
+        commandExecutor = new CommandExecutor(4, 500, 1, false);
+        commandExecutor.shutdown();
+
+        commandExecutor.submit(GUILD, () -> {
+        });
+        awaitEmpty();
+
+        // The rejected task doesn't keep its spot in the lane
+        assertTrue(commandExecutor.submit(GUILD, () -> {
+        }));
+        awaitEmpty();
+    }
+
+    /**
+     * Wait until every task has run and released its spot in the queue
+     */
+    private void awaitEmpty() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (commandExecutor.getQueuedCommands() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(0, commandExecutor.getQueuedCommands());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.meta;
+
+import com.dirk.models.SpreadsheetGateway;
+import com.dirk.models.tournament.Match;
+import com.dirk.models.tournament.SheetMatchRow;
+import com.dirk.models.tournament.SheetSchedule;
+import com.dirk.models.tournament.SynchronizationResult;
+import com.dirk.models.tournament.Tournament;
+import com.dirk.models.tournament.embeddable.MatchId;
+import com.dirk.repositories.TournamentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TournamentSynchronizerTest {
+    private static final String SERVER_SNOWFLAKE = "123456789012345678";
+
+    private TournamentRepository tournamentRepository;
+    private TournamentMatchTimer tournamentMatchTimer;
+    private TournamentSynchronizer tournamentSynchronizer;
+    private Tournament tournament;
+
+    @BeforeEach
+    void setUp() {
+        tournamentRepository = mock(TournamentRepository.class);
+        tournamentMatchTimer = mock(TournamentMatchTimer.class);
+        tournamentSynchronizer = new TournamentSynchronizer(tournamentRepository, mock(SpreadsheetGateway.class), new MatchRowIndexCache(), tournamentMatchTimer);
+
+        tournament = new Tournament(SERVER_SNOWFLAKE, "Test tournament");
+        tournament.setDateFormat("%d/%m");
+
+        when(tournamentRepository.save(any(Tournament.class))).then(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void insertsTheMatchesAndTeamsOfANewSchedule() {
+        SheetSchedule sheetSchedule = schedule(
+                Arrays.asList(row(0, "1", "20/12", "18:00", null), row(1, "2", "21/12", "19:30", "Referee")),
+                Arrays.asList(team("Team one", "Captain one"), team("Team two", "Captain two"))
+        );
+
+        SynchronizationResult synchronizationResult = tournamentSynchronizer.synchronize(tournament, sheetSchedule);
+
+        assertEquals(2, synchronizationResult.getInsertedMatches());
+        assertEquals(2, synchronizationResult.getInsertedTeams());
+        assertEquals(2, tournament.getAllMatches().size());
+        assertEquals("Referee", findMatch("2").getReferee());
+        assertEquals(1, findMatch("2").getRowIndex());
+        verify(tournamentRepository).save(tournament);
+        verify(tournamentMatchTimer, times(2)).schedule(any(Match.class));
+    }
+
+    @Test
+    void updatesChangedRowsAndDeletesRemovedRows() {
+        tournamentSynchronizer.synchronize(tournament, schedule(
+                Arrays.asList(row(0, "1", "20/12", "18:00", null), row(1, "2", "21/12", "19:30", null)),
+                Arrays.asList(team("Team one", "Captain one"), team("Team two", "Captain two"))
+        ));
+
+        SynchronizationResult synchronizationResult = tournamentSynchronizer.synchronize(tournament, schedule(
+                Collections.singletonList(row(0, "1", "20/12", "18:00", "Referee")),
+                Collections.singletonList(team("Team one", "New captain"))
+        ));
+
+        assertEquals(0, synchronizationResult.getInsertedMatches());
+        assertEquals(1, synchronizationResult.getUpdatedMatches());
+        assertEquals(1, synchronizationResult.getDeletedMatches());
+        assertEquals(1, synchronizationResult.getUpdatedTeams());
+        assertEquals(1, synchronizationResult.getDeletedTeams());
+        assertEquals("Referee", findMatch("1").getReferee());
+        assertNull(findMatch("2"));
+        assertEquals("New captain", tournament.getAllTeams().get(0).getCaptain());
+        verify(tournamentMatchTimer).cancel(new MatchId(SERVER_SNOWFLAKE, "2"));
+    }
+
+    @Test
+    void leavesUnchangedRowsAlone() {
+        List<SheetMatchRow> matchRows = Collections.singletonList(row(0, "1", "20/12", "18:00", null));
+        List<List<Object>> teamRows = Collections.singletonList(team("Team one", "Captain one"));
+
+        tournamentSynchronizer.synchronize(tournament, schedule(matchRows, teamRows));
+        SynchronizationResult synchronizationResult = tournamentSynchronizer.synchronize(tournament, schedule(matchRows, teamRows));
+
+        assertFalse(synchronizationResult.hasChanges());
+        verify(tournamentRepository, times(1)).save(any(Tournament.class));
+    }
+
+    @Test
+    void ignoresEmptyDuplicateAndIncompleteRows() {
+        SynchronizationResult synchronizationResult = tournamentSynchronizer.synchronize(tournament, schedule(
+                Arrays.asList(row(0, "1", "20/12", "18:00", null), row(1, null, null, null, null), row(2, "1", "22/12", "20:00", "Referee")),
+                Collections.singletonList(team("Team without a captain"))
+        ));
+
+        assertEquals(1, synchronizationResult.getInsertedMatches());
+        assertEquals(0, synchronizationResult.getInsertedTeams());
+        assertNull(findMatch("1").getReferee());
+        assertEquals(0, findMatch("1").getRowIndex());
+    }
+
+    @Test
+    void notifiesARescheduledMatchAgain() {
+        tournamentSynchronizer.synchronize(tournament, schedule(Collections.singletonList(row(0, "1", "20/12", "18:00", null)), Collections.emptyList()));
+        findMatch("1").setIgnoreMatch(true);
+
+        SynchronizationResult synchronizationResult = tournamentSynchronizer.synchronize(tournament, schedule(Collections.singletonList(row(0, "1", "21/12", "18:00", null)), Collections.emptyList()));
+
+        assertEquals(1, synchronizationResult.getUpdatedMatches());
+        assertFalse(findMatch("1").isIgnored());
+    }
+
+    @Test
+    void onlyNeedsSynchronizationWhenTheScheduleChanged() {
+        SheetSchedule sheetSchedule = schedule(Collections.singletonList(row(0, "1", "20/12", "18:00", null)), Collections.emptyList());
+
+        assertTrue(tournamentSynchronizer.needsSynchronization(SERVER_SNOWFLAKE, sheetSchedule));
+
+        tournamentSynchronizer.synchronize(tournament, sheetSchedule);
+
+        assertFalse(tournamentSynchronizer.needsSynchronization(SERVER_SNOWFLAKE, sheetSchedule));
+        assertTrue(tournamentSynchronizer.needsSynchronization(SERVER_SNOWFLAKE, schedule(Collections.singletonList(row(0, "1", "21/12", "18:00", null)), Collections.emptyList())));
+    }
+
+    @Test
+    void marksTheTournamentWhenTheRowWasEditedOutsideOfTheBot() {
+        SheetSchedule sheetSchedule = schedule(Collections.singletonList(row(0, "1", "20/12", "18:00", null)), Collections.emptyList());
+
+        tournamentSynchronizer.synchronize(tournament, sheetSchedule);
+
+        // The streamer was added in the spreadsheet, the change only sets the referee
+        SheetMatchRow editedRow = row(0, "1", "20/12", "18:00", null);
+        editedRow.setStreamer("Streamer");
+
+        tournamentSynchronizer.applyMatchChange(tournament, editedRow, sheetMatchRow -> sheetMatchRow.setReferee("Referee"));
+
+        assertEquals("Streamer", findMatch("1").getStreamer());
+        assertEquals("Referee", findMatch("1").getReferee());
+        assertTrue(tournamentSynchronizer.getDriftedTournaments().contains(SERVER_SNOWFLAKE));
+        assertTrue(tournamentSynchronizer.needsSynchronization(SERVER_SNOWFLAKE, sheetSchedule));
+
+        // A full synchronization picks up the edits again
+        tournamentSynchronizer.synchronize(tournament, sheetSchedule);
+
+        assertFalse(tournamentSynchronizer.getDriftedTournaments().contains(SERVER_SNOWFLAKE));
+    }
+
+    @Test
+    void savesAMatchThatOnlyCaughtUpWithTheRow() {
+        tournamentSynchronizer.synchronize(tournament, schedule(Collections.singletonList(row(0, "1", "20/12", "18:00", null)), Collections.emptyList()));
+
+        // The referee was set in the spreadsheet and the change sets the same referee
+        tournamentSynchronizer.applyMatchChange(tournament, row(0, "1", "20/12", "18:00", "Referee"), sheetMatchRow -> sheetMatchRow.setReferee("Referee"));
+
+        assertEquals("Referee", findMatch("1").getReferee());
+        verify(tournamentRepository, times(2)).save(tournament);
+    }
+
+    @Test
+    void keepsTheTournamentMarkedUntilTheSynchronizationCommits() {
+        SheetSchedule sheetSchedule = schedule(Collections.singletonList(row(0, "1", "20/12", "18:00", null)), Collections.emptyList());
+
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            tournamentSynchronizer.synchronize(tournament, sheetSchedule);
+
+            // The fingerprint is only recorded once the changes have been committed
+            assertTrue(tournamentSynchronizer.getDriftedTournaments().contains(SERVER_SNOWFLAKE));
+            assertTrue(tournamentSynchronizer.needsSynchronization(SERVER_SNOWFLAKE, sheetSchedule));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertFalse(tournamentSynchronizer.getDriftedTournaments().contains(SERVER_SNOWFLAKE));
+        assertFalse(tournamentSynchronizer.needsSynchronization(SERVER_SNOWFLAKE, sheetSchedule));
+    }
+
+    @Test
+    void keepsTheTournamentMarkedWhenTheSynchronizationRollsBack() {
+        SheetSchedule sheetSchedule = schedule(Collections.singletonList(row(0, "1", "20/12", "18:00", null)), Collections.emptyList());
+
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            tournamentSynchronizer.synchronize(tournament, sheetSchedule);
+        } finally {
+            // The transaction is rolled back, so the synchronizations never get to run afterCommit
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(tournamentSynchronizer.getDriftedTournaments().contains(SERVER_SNOWFLAKE));
+        assertTrue(tournamentSynchronizer.needsSynchronization(SERVER_SNOWFLAKE, sheetSchedule));
+    }
+
+    @Test
+    void leavesTheTournamentUnmarkedWhenTheRowMatches() {
+        tournamentSynchronizer.synchronize(tournament, schedule(Collections.singletonList(row(0, "1", "20/12", "18:00", null)), Collections.emptyList()));
+
+        tournamentSynchronizer.applyMatchChange(tournament, row(0, "1", "20/12", "18:00", null), sheetMatchRow -> sheetMatchRow.setReferee(""));
+
+        assertFalse(tournamentSynchronizer.getDriftedTournaments().contains(SERVER_SNOWFLAKE));
+        verify(tournamentRepository, times(1)).save(tournament);
+        verify(tournamentMatchTimer, never()).cancel(any(MatchId.class));
+    }
+
+    private Match findMatch(String matchId) {
+        return tournament.getAllMatches()
+                .stream()
+                .filter(match -> match.getMatchId().getMatchId().equals(matchId))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static SheetMatchRow row(int rowIndex, String matchId, String date, String time, String referee) {
+        SheetMatchRow sheetMatchRow = new SheetMatchRow(rowIndex);
+
+        sheetMatchRow.setMatchId(matchId);
+        sheetMatchRow.setDate(date);
+        sheetMatchRow.setTime(time);
+        sheetMatchRow.setPlayerOne("Player one");
+        sheetMatchRow.setPlayerTwo("Player two");
+        sheetMatchRow.setReferee(referee);
+
+        return sheetMatchRow;
+    }
+
+    private static List<Object> team(String... cells) {
+        return Arrays.asList((Object[]) cells);
+    }
+
+    private static SheetSchedule schedule(List<SheetMatchRow> matchRows, List<List<Object>> teamRows) {
+        SheetSchedule sheetSchedule = new SheetSchedule();
+
+        sheetSchedule.getMatchRows().addAll(matchRows);
+        sheetSchedule.getTeamRows().addAll(teamRows);
+
+        return sheetSchedule;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dirk.models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingSpreadsheetGatewayTest {
+    private static final String SPREADSHEET_ID = "spreadsheet";
+    private static final String TAB = "Schedule";
+    private static final List<List<Object>> VALUES = Collections.singletonList(Collections.singletonList("1"));
+
+    private SpreadsheetGateway spreadsheetGateway;
+    private CachingSpreadsheetGateway cachingSpreadsheetGateway;
+
+    @BeforeEach
+    void setUp() {
+        spreadsheetGateway = mock(SpreadsheetGateway.class);
+        cachingSpreadsheetGateway = new CachingSpreadsheetGateway(spreadsheetGateway, new SheetRangeCache(60_000, 10));
+    }
+
+    @Test
+    void servesARecentlyReadRangeFromTheCache() throws IOException {
+        when(spreadsheetGateway.getDataFromRange(SPREADSHEET_ID, TAB, "A2:A")).thenReturn(VALUES);
+
+        cachingSpreadsheetGateway.getDataFromRange(SPREADSHEET_ID, TAB, "A2:A");
+
+        assertSame(VALUES, cachingSpreadsheetGateway.getDataFromRange(SPREADSHEET_ID, TAB, "A2:A"));
+        verify(spreadsheetGateway, times(1)).getDataFromRange(SPREADSHEET_ID, TAB, "A2:A");
+    }
+
+    @Test
+    void readsTheRangeAgainAfterAWrite() throws IOException {
+        when(spreadsheetGateway.getDataFromRange(SPREADSHEET_ID, TAB, "A2:A")).thenReturn(VALUES);
+
+        cachingSpreadsheetGateway.getDataFromRange(SPREADSHEET_ID, TAB, "A2:A");
+        cachingSpreadsheetGateway.updateDataOnSheet(SPREADSHEET_ID, TAB, "A2", "2");
+        cachingSpreadsheetGateway.getDataFromRange(SPREADSHEET_ID, TAB, "A2:A");
+
+        verify(spreadsheetGateway, times(2)).getDataFromRange(SPREADSHEET_ID, TAB, "A2:A");
+    }
+
+    @Test
+    void doesNotCacheARangeThatWasWrittenWhileItWasRead() throws IOException {
+        // The tab is written to while the range is being read, so the read may have missed the write
+        when(spreadsheetGateway.getDataFromRange(SPREADSHEET_ID, TAB, "A2:A")).thenAnswer(invocation -> {
+            cachingSpreadsheetGateway.updateDataOnSheet(SPREADSHEET_ID, TAB, "A2", "2");
+            return VALUES;
+        });
+
+        cachingSpreadsheetGateway.getDataFromRange(SPREADSHEET_ID, TAB, "A2:A");
+        cachingSpreadsheetGateway.getDataFromRange(SPREADSHEET_ID, TAB, "A2:A");
+
+        verify(spreadsheetGateway, times(2)).getDataFromRange(SPREADSHEET_ID, TAB, "A2:A");
+    }
+
+    @Test
+    void onlyRequestsTheRangesThatArentCached() throws IOException {
+        List<List<Object>> otherValues = Collections.singletonList(Collections.singletonList("2"));
+
+        when(spreadsheetGateway.getDataFromRange(SPREADSHEET_ID, TAB, "A2:A")).thenReturn(VALUES);
+        when(spreadsheetGateway.getDataFromRanges(SPREADSHEET_ID, TAB, Collections.singletonList("B2:B"))).thenReturn(Collections.singletonList(otherValues));
+
+        cachingSpreadsheetGateway.getDataFromRange(SPREADSHEET_ID, TAB, "A2:A");
+        List<List<List<Object>>> allValues = cachingSpreadsheetGateway.getDataFromRanges(SPREADSHEET_ID, TAB, Arrays.asList("A2:A", "B2:B"));
+
+        assertEquals(Arrays.asList(VALUES, otherValues), allValues);
+        verify(spreadsheetGateway, times(1)).getDataFromRanges(eq(SPREADSHEET_ID), eq(TAB), anyList());
+        verify(spreadsheetGateway).getDataFromRanges(SPREADSHEET_ID, TAB, Collections.singletonList("B2:B"));
+    }
+}
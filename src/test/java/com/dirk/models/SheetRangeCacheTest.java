@@ -0,0 +1,122 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Wesley
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dirk.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SheetRangeCacheTest {
+    private static final String SPREADSHEET_ID = "spreadsheet";
+    private static final String TAB = "Schedule";
+    private static final List<List<Object>> VALUES = Collections.singletonList(Collections.singletonList("1"));
+
+    @Test
+    void returnsCachedValuesWithinTheTtl() {
+        SheetRangeCache cache = new SheetRangeCache(60_000, 10);
+
+        cache.put(SPREADSHEET_ID, TAB, "A2:A", VALUES, cache.getGeneration(SPREADSHEET_ID, TAB));
+
+        assertSame(VALUES, cache.get(SPREADSHEET_ID, TAB, "A2:A").getValues());
+        assertNull(cache.get(SPREADSHEET_ID, TAB, "B2:B"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void expiresValuesAfterTheTtl() throws InterruptedException {
+        SheetRangeCache cache = new SheetRangeCache(1, 10);
+
+        cache.put(SPREADSHEET_ID, TAB, "A2:A", VALUES, cache.getGeneration(SPREADSHEET_ID, TAB));
+        Thread.sleep(10);
+
+        assertNull(cache.get(SPREADSHEET_ID, TAB, "A2:A"));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedRange() {
+        SheetRangeCache cache = new SheetRangeCache(60_000, 2);
+        long generation = cache.getGeneration(SPREADSHEET_ID, TAB);
+
+        cache.put(SPREADSHEET_ID, TAB, "A2:A", VALUES, generation);
+        cache.put(SPREADSHEET_ID, TAB, "B2:B", VALUES, generation);
+
+        // A2:A is used again, so B2:B is the least recently used range
+        assertNotNull(cache.get(SPREADSHEET_ID, TAB, "A2:A"));
+        cache.put(SPREADSHEET_ID, TAB, "C2:C", VALUES, generation);
+
+        assertNotNull(cache.get(SPREADSHEET_ID, TAB, "A2:A"));
+        assertNull(cache.get(SPREADSHEET_ID, TAB, "B2:B"));
+        assertNotNull(cache.get(SPREADSHEET_ID, TAB, "C2:C"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void invalidatesOnlyTheRangesOfTheTab() {
+        SheetRangeCache cache = new SheetRangeCache(60_000, 10);
+
+        cache.put(SPREADSHEET_ID, TAB, "A2:A", VALUES, cache.getGeneration(SPREADSHEET_ID, TAB));
+        cache.put(SPREADSHEET_ID, "Teams", "A2:A", VALUES, cache.getGeneration(SPREADSHEET_ID, "Teams"));
+        cache.put("other", TAB, "A2:A", VALUES, cache.getGeneration("other", TAB));
+
+        cache.invalidate(SPREADSHEET_ID, TAB);
+
+        assertNull(cache.get(SPREADSHEET_ID, TAB, "A2:A"));
+        assertNotNull(cache.get(SPREADSHEET_ID, "Teams", "A2:A"));
+        assertNotNull(cache.get("other", TAB, "A2:A"));
+    }
+
+    @Test
+    void doesNotCacheValuesThatWereReadBeforeAWrite() {
+        SheetRangeCache cache = new SheetRangeCache(60_000, 10);
+        long generation = cache.getGeneration(SPREADSHEET_ID, TAB);
+
+        // The tab is written to while the values are being read
+        cache.invalidate(SPREADSHEET_ID, TAB);
+        cache.put(SPREADSHEET_ID, TAB, "A2:A", VALUES, generation);
+
+        assertNull(cache.get(SPREADSHEET_ID, TAB, "A2:A"));
+
+        cache.put(SPREADSHEET_ID, TAB, "A2:A", VALUES, cache.getGeneration(SPREADSHEET_ID, TAB));
+
+        assertNotNull(cache.get(SPREADSHEET_ID, TAB, "A2:A"));
+    }
+
+    @Test
+    void cachesNothingWithoutEntries() {
+        SheetRangeCache cache = new SheetRangeCache(60_000, 0);
+
+        cache.put(SPREADSHEET_ID, TAB, "A2:A", VALUES, cache.getGeneration(SPREADSHEET_ID, TAB));
+
+        assertNull(cache.get(SPREADSHEET_ID, TAB, "A2:A"));
+        assertEquals(0, cache.getSize());
+    }
+}